@@ -0,0 +1,44 @@
+#!/bin/sh
+# Gera o arquivo AppCDS da aplicação.
+#
+#   scripts/cds-archive.sh <jar> <diretório de saída>
+#
+# O CDS só arquiva classes carregadas pelo class loader da aplicação a partir de
+# jars comuns, não os aninhados do jar do Spring Boot. Por isso o jar é extraído e a
+# aplicação roda com o classpath explodido, gravado em <saída>/classpath.args. Em
+# execução, use o mesmo classpath (nos mesmos caminhos) e a mesma JVM do treino:
+#
+#   java -XX:SharedArchiveFile=<saída>/app.jsa @<saída>/classpath.args com.insper.product.ProductApplication
+#
+# O treino sobe com o perfil prod num H2 em memória (migrações do Flyway, validação do
+# Hibernate, segurança, actuator), faz algumas requisições e encerra. O jwt.secret é
+# descartável: o treino não valida tokens, e o secret de produção não entra na imagem.
+set -eu
+
+JAR=$(cd "$(dirname "$1")" && pwd)/$(basename "$1")
+OUT=$2
+
+rm -rf "$OUT"
+mkdir -p "$OUT/app"
+OUT=$(cd "$OUT" && pwd)
+(cd "$OUT/app" && jar -xf "$JAR")
+
+# Ordem fixa: o classpath da execução precisa ser igual ao do treino
+CLASSPATH="$OUT/app/BOOT-INF/classes"
+for lib in $(ls "$OUT"/app/BOOT-INF/lib/*.jar | sort); do
+    CLASSPATH="$CLASSPATH:$lib"
+done
+echo "-cp $CLASSPATH" > "$OUT/classpath.args"
+
+java -XX:ArchiveClassesAtExit="$OUT/app.jsa" \
+    @"$OUT/classpath.args" com.insper.product.ProductApplication \
+    --spring.profiles.active=prod \
+    --product.startup.exit-after-ready=true \
+    --server.port=0 \
+    --management.server.port=0 \
+    --spring.datasource.url=jdbc:h2:mem:cds-training \
+    --spring.datasource.username=sa \
+    --spring.datasource.password= \
+    --jwt.secret="cds-training-$$"
+
+echo "Arquivo CDS: $OUT/app.jsa ($(du -h "$OUT/app.jsa" | cut -f1))"
@@ -0,0 +1,60 @@
+#!/usr/bin/env bash
+# Tempo até a primeira requisição respondida e RSS depois de pronta, comparando o jar
+# do Spring Boot com o classpath explodido + AppCDS. Roda no perfil prod com H2 em memória.
+#
+#   mvn -Pcds -DskipTests package
+#   scripts/startup-benchmark.sh [execuções]
+#
+# Linux (lê o RSS de /proc); precisa de curl.
+set -euo pipefail
+
+RUNS=${1:-5}
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+JAR=$ROOT/target/product-service-0.0.1-SNAPSHOT.jar
+CDS=$ROOT/target/cds
+PORT=${PORT:-18081}
+# jwt.secret descartável: a medição só faz GET /products, sem token
+APP_ARGS=(--spring.profiles.active=prod --server.port="$PORT" --management.server.port=0
+          --spring.datasource.username=sa --spring.datasource.password=
+          --jwt.secret="startup-benchmark-$$")
+
+[ -f "$JAR" ] || { echo "Jar não encontrado: $JAR (rode mvn package)" >&2; exit 1; }
+
+now_ms() { echo $(( $(date +%s%N) / 1000000 )); }
+
+# measure <rótulo> <comando...>: imprime "rótulo  média_ms  min_ms  rss_médio_MB"
+measure() {
+    local label=$1
+    shift
+    local total_ms=0 min_ms=0 total_rss=0
+    for ((i = 1; i <= RUNS; i++)); do
+        local start
+        start=$(now_ms)
+        "$@" "${APP_ARGS[@]}" --spring.datasource.url="jdbc:h2:mem:startup-$label-$i" >/dev/null 2>&1 &
+        local pid=$!
+        until curl -sf -o /dev/null "http://localhost:$PORT/products"; do
+            kill -0 "$pid" 2>/dev/null || { echo "$label: a aplicação terminou antes de responder" >&2; exit 1; }
+            sleep 0.02
+        done
+        local elapsed=$(( $(now_ms) - start ))
+        local rss_kb
+        rss_kb=$(awk '/^VmRSS/ {print $2}' "/proc/$pid/status")
+        kill "$pid"
+        wait "$pid" 2>/dev/null || true
+
+        total_ms=$(( total_ms + elapsed ))
+        total_rss=$(( total_rss + rss_kb ))
+        if (( min_ms == 0 || elapsed < min_ms )); then
+            min_ms=$elapsed
+        fi
+    done
+    printf "%-6s %10d %8d %10d\n" "$label" $(( total_ms / RUNS )) "$min_ms" $(( total_rss / RUNS / 1024 ))
+}
+
+printf "%-6s %10s %8s %10s\n" "modo" "média_ms" "min_ms" "rss_MB"
+measure jar java -jar "$JAR"
+if [ -f "$CDS/app.jsa" ]; then
+    measure cds java -XX:SharedArchiveFile="$CDS/app.jsa" @"$CDS/classpath.args" com.insper.product.ProductApplication
+else
+    echo "Sem $CDS/app.jsa: rode mvn -Pcds package para comparar com o CDS" >&2
+fi
@@ -0,0 +1,74 @@
+package com.insper.product.benchmark;
+
+import com.insper.product.model.Product;
+import com.insper.product.service.ProductBatchService;
+import com.insper.product.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vazão de escrita: um save por produto (caminho do POST /products) contra o
+ * ProductBatchService (POST /products/batch). Resultado em produtos/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BatchWriteBenchmark {
+
+    private static final int ITEMS = 1000;
+
+    @Param({"100", "500"})
+    public int chunkSize;
+
+    private ConfigurableApplicationContext context;
+    private ProductService service;
+    private ProductBatchService batchService;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.NONE,
+                Map.of("product.batch.chunk-size", String.valueOf(chunkSize)));
+        service = context.getBean(ProductService.class);
+        batchService = context.getBean(ProductBatchService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public void perItem() {
+        for (Product product : BenchmarkApplication.products(0, ITEMS)) {
+            service.save(product);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public Object batch() {
+        List<Product> products = BenchmarkApplication.products(0, ITEMS);
+        return batchService.createAll(products);
+    }
+}
@@ -0,0 +1,65 @@
+package com.insper.product.benchmark;
+
+import com.insper.product.ProductApplication;
+import com.insper.product.model.Product;
+import com.insper.product.service.ProductBatchService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Sobe o ProductApplication contra um H2 em memória exclusivo, para os benchmarks
+ * que precisam da pilha real (JPA, cache, segurança).
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {}
+
+    static ConfigurableApplicationContext start(WebApplicationType webType, Map<String, Object> overrides) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.datasource.url", "jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        properties.put("server.port", "0");
+        properties.put("management.server.port", "0");
+        properties.put("logging.level.root", "WARN");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.putAll(overrides);
+        // Como argumentos de linha de comando, e não defaultProperties: precisam valer sobre o application.properties
+        String[] args = properties.entrySet().stream()
+                                  .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                                  .toArray(String[]::new);
+        return new SpringApplicationBuilder(ProductApplication.class)
+                .web(webType)
+                .run(args);
+    }
+
+    /**
+     * Grava {@code count} produtos pelo caminho em lote e devolve os ids gerados.
+     */
+    static List<UUID> seed(ConfigurableApplicationContext context, int count) {
+        ProductBatchService batch = context.getBean(ProductBatchService.class);
+        List<UUID> ids = new ArrayList<>(count);
+        for (int from = 0; from < count; from += 10_000) {
+            List<Product> chunk = products(from, Math.min(count, from + 10_000));
+            batch.createAll(chunk).getItems().forEach(item -> ids.add(item.getId()));
+        }
+        return ids;
+    }
+
+    static List<Product> products(int from, int to) {
+        List<Product> products = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            products.add(product(i));
+        }
+        return products;
+    }
+
+    static Product product(int i) {
+        return new Product("Produto " + i, (i % 10_000) / 100.0 + 0.99, i % 3 == 0 ? "kg" : "un");
+    }
+}
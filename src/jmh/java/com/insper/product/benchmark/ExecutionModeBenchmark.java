@@ -0,0 +1,99 @@
+package com.insper.product.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carga HTTP real (Tomcat na porta local) com alta concorrência, comparando o pool
+ * de threads do Tomcat com virtual threads. O modo SampleTime registra a distribuição
+ * das latências, então o resultado traz vazão e percentis (p99, p99.9) por modo.
+ *
+ * O Tomcat fica com poucas threads de plataforma (32) para que a saturação apareça
+ * com 256 clientes; no modo virtual esse limite não se aplica. Em JDKs anteriores
+ * ao 21 os dois modos se comportam igual (ver ExecutionConfig).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(256)
+@Fork(1)
+public class ExecutionModeBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private List<UUID> ids;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET, Map.of(
+                "product.execution.mode", mode,
+                "server.tomcat.threads.max", "32",
+                "server.tomcat.accept-count", "1000",
+                "server.tomcat.max-connections", "10000",
+                // 256 clientes do mesmo IP: o limite por cliente responderia 429 depois da rajada
+                "product.limits.enabled", "false"));
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port;
+        ids = BenchmarkApplication.seed(context, 10_000);
+        client = HttpClient.newBuilder()
+                           .connectTimeout(Duration.ofSeconds(5))
+                           .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getById() throws Exception {
+        UUID id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        return send("/products/" + id);
+    }
+
+    @Benchmark
+    public int searchPage() throws Exception {
+        return send("/products/search?name=produto%20" + ThreadLocalRandom.current().nextInt(100) + "&size=20");
+    }
+
+    private int send(String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        // Um erro (429, 503...) é muito mais rápido que a resposta real e distorceria a medição
+        if (status != 200) {
+            throw new IllegalStateException("Resposta " + status + " no benchmark");
+        }
+        return status;
+    }
+}
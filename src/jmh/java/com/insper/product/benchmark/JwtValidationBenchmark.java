@@ -0,0 +1,77 @@
+package com.insper.product.benchmark;
+
+import com.insper.product.config.JwtAuthenticationFilter;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo do JwtAuthenticationFilter por requisição. "repeated" reenvia sempre o mesmo
+ * token (caminho do cache); "distinct" percorre mais tokens do que o cache comporta,
+ * então cada requisição paga a verificação completa da assinatura.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtValidationBenchmark {
+
+    private static final int DISTINCT_TOKENS = 20_000;
+
+    @Param({"repeated", "distinct"})
+    public String tokens;
+
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest[] requests;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int count = "repeated".equals(tokens) ? 1 : DISTINCT_TOKENS;
+        requests = new MockHttpServletRequest[count];
+        Date expiration = new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+        for (int i = 0; i < count; i++) {
+            String token = Jwts.builder()
+                               .setSubject("user-" + i)
+                               .setExpiration(expiration)
+                               .signWith(SignatureAlgorithm.HS256, "MINHA_CHAVE_SECRETA".getBytes())
+                               .compact();
+            requests[i] = new MockHttpServletRequest("GET", "/products");
+            requests[i].addHeader("Authorization", "Bearer " + token);
+        }
+        filter = new JwtAuthenticationFilter(new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public Object filterRequest() throws Exception {
+        MockHttpServletRequest request = requests[next];
+        next = (next + 1) % requests.length;
+        // O OncePerRequestFilter marca a requisição; remove a marca para reutilizá-la
+        request.clearAttributes();
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
@@ -0,0 +1,82 @@
+package com.insper.product.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Requisições completas pela pilha MVC + Spring Security (sem rede), em requisições/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MockMvcBenchmark {
+
+    @Param({"1000"})
+    public int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private List<UUID> ids;
+
+    @Setup
+    public void setUp() {
+        // Todas as requisições saem do mesmo IP: sem o limite por cliente, que responderia 429 depois da rajada
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET, Map.of("product.limits.enabled", "false"));
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                                 .apply(springSecurity())
+                                 .build();
+        ids = BenchmarkApplication.seed(context, catalogSize);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getAll() throws Exception {
+        return ok(mockMvc.perform(get("/products")).andReturn().getResponse()).getContentLength();
+    }
+
+    @Benchmark
+    public int getById() throws Exception {
+        UUID id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        return ok(mockMvc.perform(get("/products/{id}", id)).andReturn().getResponse()).getStatus();
+    }
+
+    // Um erro (429, 503...) é muito mais rápido que a resposta real e distorceria a medição
+    private static MockHttpServletResponse ok(MockHttpServletResponse response) {
+        if (response.getStatus() != 200) {
+            throw new IllegalStateException("Resposta " + response.getStatus() + " no benchmark");
+        }
+        return response;
+    }
+}
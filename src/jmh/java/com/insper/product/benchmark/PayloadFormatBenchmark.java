@@ -0,0 +1,104 @@
+package com.insper.product.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.insper.product.config.ProductCatalogHttpMessageConverter;
+import com.insper.product.model.Product;
+import com.insper.product.model.ProductCatalog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Custo de cada formato da resposta de GET /products: CPU para escrever (servidor) e
+ * para ler (cliente), com e sem gzip. O tamanho do corpo de cada combinação é
+ * impresso no setup ("[payload] ...").
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadFormatBenchmark {
+
+    private static final TypeReference<List<Product>> PRODUCT_LIST = new TypeReference<>() {};
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"false", "true"})
+    public boolean gzip;
+
+    private ProductCatalog catalog;
+    private JsonFactory factory;
+    private ObjectMapper reader;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<Product> products = BenchmarkApplication.products(0, size);
+        products.forEach(p -> {
+            p.setId(UUID.randomUUID());
+            p.setVersion(0L);
+        });
+        catalog = new ProductCatalog(products);
+        switch (format) {
+            case "cbor":
+                factory = new CBORFactory();
+                break;
+            case "smile":
+                factory = new SmileFactory();
+                break;
+            default:
+                factory = new JsonFactory();
+        }
+        reader = new ObjectMapper(factory);
+        encoded = encode();
+        System.out.printf("[payload] size=%d format=%s gzip=%s bytes=%d (%.1f bytes/produto)%n",
+                size, format, gzip, encoded.length, (double) encoded.length / size);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(size * 64);
+        try (OutputStream out = gzip ? new GZIPOutputStream(bytes) : bytes;
+             JsonGenerator generator = factory.createGenerator(out)) {
+            ProductCatalogHttpMessageConverter.write(catalog, generator);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public List<Product> decode() throws IOException {
+        try (InputStream in = gzip ? new GZIPInputStream(new ByteArrayInputStream(encoded)) : new ByteArrayInputStream(encoded)) {
+            return reader.readValue(in, PRODUCT_LIST);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.insper.product.benchmark;
+
+import com.insper.product.model.ProductSort;
+import com.insper.product.repository.ProductRepository;
+import com.insper.product.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Camada de persistência com e sem o perfil high-throughput, em SampleTime para ler os
+ * percentis (p0.99 na saída do JMH): findById pelo repositório (sem o cache do
+ * ProductService na frente, que esconderia o JPA) e páginas keyset já visitadas, o caso
+ * do cache de consultas. Com 8 threads, o pool também entra na medida.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class PersistenceTuningBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"10000"})
+    public int catalogSize;
+
+    @Param({"default", "high-throughput"})
+    public String profile;
+
+    // Páginas distintas consultadas (as primeiras de cada ordenação são as mais pedidas)
+    @Param({"20"})
+    public int hotPages;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository repository;
+    private ProductService service;
+    private List<UUID> ids;
+    private final List<String> cursors = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("product.search.enabled", "false");
+        if (!"default".equals(profile)) {
+            overrides.put("spring.profiles.active", profile);
+        }
+        context = BenchmarkApplication.start(WebApplicationType.NONE, overrides);
+        repository = context.getBean(ProductRepository.class);
+        service = context.getBean(ProductService.class);
+        ids = BenchmarkApplication.seed(context, catalogSize);
+
+        String cursor = null;
+        do {
+            cursors.add(cursor);
+            cursor = service.findPage(ProductSort.NAME, cursor, PAGE_SIZE).getNextCursor();
+        } while (cursor != null && cursors.size() < hotPages);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object findById() {
+        return repository.findById(ids.get(ThreadLocalRandom.current().nextInt(ids.size())));
+    }
+
+    @Benchmark
+    public Object findPage() {
+        String cursor = cursors.get(ThreadLocalRandom.current().nextInt(cursors.size()));
+        return service.findPage(ProductSort.NAME, cursor, PAGE_SIZE);
+    }
+}
@@ -0,0 +1,78 @@
+package com.insper.product.benchmark;
+
+import com.insper.product.model.ProductSuggestion;
+import com.insper.product.search.TrigramIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latência de GET /products/suggest sem a camada HTTP: consultas no TrigramIndex com
+ * nomes sintéticos (palavras de papelaria combinadas), por prefixo e com erros de
+ * digitação. O tempo da construção é impresso no setup ("[index] ...").
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class ProductNameIndexBenchmark {
+
+    private static final String[] KINDS = {"Caneta", "Lápis", "Caderno", "Borracha", "Régua", "Apontador",
+            "Mochila", "Estojo", "Tesoura", "Cola", "Papel", "Pasta", "Grampeador", "Clipe", "Marcador"};
+    private static final String[] TRAITS = {"azul", "preta", "vermelha", "verde", "amarela", "universitário",
+            "escolar", "premium", "básico", "infantil", "grande", "pequeno"};
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    @Param({"cad", "caderno univ", "cadrno univercitario", "grampeadr", "mochila infantil 4999"})
+    public String query;
+
+    private TrigramIndex index;
+
+    @Setup
+    public void setUp() {
+        long[] high = new long[size];
+        long[] low = new long[size];
+        String[] names = new String[size];
+        Random random = new Random(42);
+        for (int i = 0; i < size; i++) {
+            UUID id = UUID.randomUUID();
+            high[i] = id.getMostSignificantBits();
+            low[i] = id.getLeastSignificantBits();
+            names[i] = KINDS[random.nextInt(KINDS.length)] + " " + TRAITS[random.nextInt(TRAITS.length)]
+                    + " " + random.nextInt(5000);
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        long start = System.nanoTime();
+        index = TrigramIndex.build(high, low, names, null, size, threads);
+        System.out.printf("%n[index] %d produtos em %d ms (%d threads)%n",
+                size, (System.nanoTime() - start) / 1_000_000, threads);
+    }
+
+    @Benchmark
+    public List<ProductSuggestion> suggest(Scratch scratch) {
+        return index.suggest(query, 10, 0.5, scratch.scratch);
+    }
+
+    // Uma área de trabalho por thread, como o pool do ProductNameIndex
+    @State(Scope.Thread)
+    public static class Scratch {
+        final TrigramIndex.Scratch scratch = new TrigramIndex.Scratch();
+    }
+}
@@ -0,0 +1,73 @@
+package com.insper.product.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.insper.product.config.ProductCatalogHttpMessageConverter;
+import com.insper.product.model.Product;
+import com.insper.product.model.ProductCatalog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialização JSON de listas de produtos, como na resposta de GET /products:
+ * Jackson sobre as entidades contra o escritor das colunas de ProductCatalog.
+ * Para comparar a alocação por resposta, rode com -Djmh.args="-prof gc" (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductSerializationBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    private ObjectWriter writer;
+    private List<Product> products;
+    private ProductCatalog catalog;
+    private JsonFactory factory;
+
+    @Setup
+    public void setUp() {
+        writer = new ObjectMapper().writerFor(List.class);
+        products = BenchmarkApplication.products(0, size);
+        products.forEach(p -> {
+            p.setId(UUID.randomUUID());
+            p.setVersion(0L);
+        });
+        catalog = new ProductCatalog(products);
+        factory = new ObjectMapper().getFactory();
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws Exception {
+        return writer.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public byte[] serializeCatalog() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size * 128);
+        try (JsonGenerator json = factory.createGenerator(out)) {
+            ProductCatalogHttpMessageConverter.write(catalog, json);
+        }
+        return out.toByteArray();
+    }
+}
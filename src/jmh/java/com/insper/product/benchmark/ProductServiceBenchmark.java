@@ -0,0 +1,73 @@
+package com.insper.product.benchmark;
+
+import com.insper.product.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProductService.findById/findCatalog contra H2 embarcado. Com cacheTtl=0s o cache
+ * expira na hora, medindo o caminho até o banco; com 5m mede o caminho em memória.
+ * No modo snapshot o TTL não se aplica: as leituras nunca vão ao banco.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductServiceBenchmark {
+
+    @Param({"1000", "10000"})
+    public int catalogSize;
+
+    @Param({"0s", "5m"})
+    public String cacheTtl;
+
+    @Param({"cache", "snapshot"})
+    public String catalogMode;
+
+    private ConfigurableApplicationContext context;
+    private ProductService service;
+    private List<UUID> ids;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.NONE, Map.of("product.cache.ttl", cacheTtl,
+                "product.catalog.mode", catalogMode));
+        service = context.getBean(ProductService.class);
+        ids = BenchmarkApplication.seed(context, catalogSize);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object findById() {
+        return service.findById(ids.get(ThreadLocalRandom.current().nextInt(ids.size())));
+    }
+
+    @Benchmark
+    public Object findCatalog() {
+        return service.findCatalog();
+    }
+}
@@ -0,0 +1,84 @@
+package com.insper.product.loadtest;
+
+/**
+ * Histograma de latências em microssegundos, com erro relativo de até ~1,6%: valores
+ * abaixo de 128 µs têm um balde cada; acima disso, cada potência de 2 é dividida em 64
+ * baldes. Um por thread e por operação (sem sincronização), somados no fim.
+ */
+final class LatencyHistogram {
+
+    private static final int EXACT = 128;
+    private static final int SUB_BUCKETS = 64;
+    // Até 2^40 µs (~12 dias): nenhuma requisição passa disso
+    private static final int MAX_EXPONENT = 40;
+
+    private final long[] counts = new long[EXACT + (MAX_EXPONENT - 6) * SUB_BUCKETS];
+    private long total;
+    private long sum;
+    private long max;
+
+    void record(long micros) {
+        long value = Math.max(0, micros);
+        counts[index(value)]++;
+        total++;
+        sum += value;
+        max = Math.max(max, value);
+    }
+
+    void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    long count() {
+        return total;
+    }
+
+    long max() {
+        return max;
+    }
+
+    double mean() {
+        return total == 0 ? 0 : (double) sum / total;
+    }
+
+    /** Menor valor (limite superior do balde) que cobre a fração {@code quantile} das amostras. */
+    long percentile(double quantile) {
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(max, upperBound(i));
+            }
+        }
+        return max;
+    }
+
+    private static int index(long value) {
+        if (value < EXACT) {
+            return (int) value;
+        }
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_EXPONENT - 1);
+        int shift = exponent - 6;
+        int mantissa = (int) Math.min(value >> shift, 2 * SUB_BUCKETS - 1);
+        return EXACT + (exponent - 7) * SUB_BUCKETS + (mantissa - SUB_BUCKETS);
+    }
+
+    private static long upperBound(int index) {
+        if (index < EXACT) {
+            return index;
+        }
+        int exponent = (index - EXACT) / SUB_BUCKETS + 7;
+        int mantissa = (index - EXACT) % SUB_BUCKETS + SUB_BUCKETS;
+        int shift = exponent - 6;
+        return ((long) (mantissa + 1) << shift) - 1;
+    }
+}
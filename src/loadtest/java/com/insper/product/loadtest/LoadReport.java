@@ -0,0 +1,144 @@
+package com.insper.product.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Relatório de uma execução, em JSON com ordem de campos fixa e números arredondados,
+ * para que dois relatórios possam ser comparados com diff (ou com baseline=) entre
+ * commits. Latências em milissegundos, medidas no cliente (da requisição à resposta completa).
+ */
+final class LoadReport {
+
+    static final int SCHEMA = 1;
+
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    /** Contagens de uma operação: latências e respostas por status ("error" = falha de E/S). */
+    static final class OperationStats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final Map<String, Long> statuses = new TreeMap<>();
+
+        void record(String status, long micros) {
+            latency.record(micros);
+            statuses.merge(status, 1L, Long::sum);
+        }
+
+        void add(OperationStats other) {
+            latency.add(other.latency);
+            other.statuses.forEach((status, count) -> statuses.merge(status, count, Long::sum));
+        }
+
+        long errors() {
+            long errors = 0;
+            for (Map.Entry<String, Long> entry : statuses.entrySet()) {
+                if (!entry.getKey().startsWith("2")) {
+                    errors += entry.getValue();
+                }
+            }
+            return errors;
+        }
+    }
+
+    ObjectNode build(ObjectNode config, long seedMillis, double seconds,
+                     EnumMap<Workload.Operation, OperationStats> operations) {
+        ObjectNode report = mapper.createObjectNode();
+        report.put("schema", SCHEMA);
+        report.set("config", config);
+        report.put("seedMillis", seedMillis);
+
+        long requests = 0;
+        long errors = 0;
+        ObjectNode byOperation = mapper.createObjectNode();
+        for (Map.Entry<Workload.Operation, OperationStats> entry : operations.entrySet()) {
+            OperationStats stats = entry.getValue();
+            requests += stats.latency.count();
+            errors += stats.errors();
+
+            ObjectNode node = byOperation.putObject(entry.getKey().key());
+            node.put("requests", stats.latency.count());
+            node.put("throughput", round(stats.latency.count() / seconds, 1));
+            node.put("errors", stats.errors());
+            ObjectNode statuses = node.putObject("statuses");
+            stats.statuses.forEach(statuses::put);
+            ObjectNode latency = node.putObject("latencyMs");
+            latency.put("mean", round(stats.latency.mean() / 1000, 3));
+            for (double percentile : PERCENTILES) {
+                latency.put(percentileKey(percentile), round(stats.latency.percentile(percentile) / 1000.0, 3));
+            }
+            latency.put("max", round(stats.latency.max() / 1000.0, 3));
+        }
+
+        ObjectNode total = report.putObject("total");
+        total.put("requests", requests);
+        total.put("throughput", round(requests / seconds, 1));
+        total.put("errors", errors);
+        report.set("operations", byOperation);
+        return report;
+    }
+
+    void write(ObjectNode report, Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        mapper.writeValue(file.toFile(), report);
+    }
+
+    /**
+     * Compara com um relatório anterior: regressão é p99 mais alto ou vazão mais baixa que
+     * a do baseline por mais de {@code tolerance} (0,2 = 20%).
+     *
+     * @return as linhas de comparação; as regressões começam com "REGRESSÃO"
+     */
+    List<String> compare(ObjectNode report, Path baselineFile, double tolerance) throws IOException {
+        JsonNode baseline = mapper.readTree(baselineFile.toFile());
+        List<String> lines = new ArrayList<>();
+        Iterator<Map.Entry<String, JsonNode>> operations = report.get("operations").fields();
+        while (operations.hasNext()) {
+            Map.Entry<String, JsonNode> current = operations.next();
+            JsonNode before = baseline.path("operations").path(current.getKey());
+            if (before.isMissingNode()) {
+                lines.add(current.getKey() + ": sem baseline");
+                continue;
+            }
+            double p99 = current.getValue().path("latencyMs").path("p99").asDouble();
+            double p99Before = before.path("latencyMs").path("p99").asDouble();
+            double throughput = current.getValue().path("throughput").asDouble();
+            double throughputBefore = before.path("throughput").asDouble();
+            boolean regressed = p99 > p99Before * (1 + tolerance) || throughput < throughputBefore * (1 - tolerance);
+            lines.add(String.format(Locale.ROOT, "%s%s: p99 %.3f -> %.3f ms (%+.1f%%), vazão %.1f -> %.1f req/s (%+.1f%%)",
+                    regressed ? "REGRESSÃO " : "", current.getKey(),
+                    p99Before, p99, change(p99Before, p99),
+                    throughputBefore, throughput, change(throughputBefore, throughput)));
+        }
+        return lines;
+    }
+
+    private static double change(double before, double after) {
+        return before == 0 ? 0 : (after - before) * 100 / before;
+    }
+
+    private static String percentileKey(double percentile) {
+        // 0.5 -> p50, 0.999 -> p999
+        return "p" + BigDecimal.valueOf(percentile * 100).stripTrailingZeros().toPlainString().replace(".", "");
+    }
+
+    private static double round(double value, int scale) {
+        return BigDecimal.valueOf(value).setScale(scale, RoundingMode.HALF_UP).doubleValue();
+    }
+}
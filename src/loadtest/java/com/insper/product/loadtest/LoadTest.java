@@ -0,0 +1,281 @@
+package com.insper.product.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.insper.product.ProductApplication;
+import com.insper.product.model.ImportResult;
+import com.insper.product.service.ProductImportService;
+import com.insper.product.transfer.ProductFormat;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Teste de carga da pilha real: sobe o ProductApplication (H2 em memória, ou o banco de
+ * spring.datasource.url=), carrega um catálogo gerado pela importação em CSV, espera o
+ * índice de nomes e dispara a carga mista com {@code concurrency} clientes em laço fechado,
+ * cada um com o seu JWT. Ao fim, grava o relatório JSON (LoadReport) e, com baseline=,
+ * compara com um relatório anterior. Os tokens não levam papéis: as escritas (update, prices)
+ * exigem ROLE_ADMIN e aparecem no relatório como 403.
+ *
+ * Opções (nome=valor, com ou sem "--"): products (10000), concurrency (32), warmup (10s),
+ * duration (60s), mix (Workload.DEFAULT_MIX), seed (42), report-dir (target/loadtest), report,
+ * baseline e max-regression (0.2; com baseline, o código de saída é 1 se houver regressão).
+ * Os demais argumentos vão para o Spring, ex.: spring.profiles.active=high-throughput.
+ */
+public final class LoadTest {
+
+    private static final String JWT_SECRET = "MINHA_CHAVE_SECRETA";
+
+    private LoadTest() {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("products", "10000");
+        options.put("concurrency", "32");
+        options.put("warmup", "10s");
+        options.put("duration", "60s");
+        options.put("mix", Workload.DEFAULT_MIX);
+        options.put("seed", "42");
+        options.put("report-dir", "target/loadtest");
+        options.put("report", "");
+        options.put("baseline", "");
+        options.put("max-regression", "0.2");
+        Map<String, Object> springProperties = new HashMap<>();
+        for (String arg : args) {
+            // "--nome=valor" ou "nome=valor" (o segundo cabe em comentários do pom e em -Dloadtest.args)
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            int equals = option.indexOf('=');
+            if (equals < 1) {
+                throw new IllegalArgumentException("Argumento inválido: " + arg + " (use nome=valor)");
+            }
+            String name = option.substring(0, equals);
+            String value = option.substring(equals + 1);
+            if (options.containsKey(name)) {
+                options.put(name, value);
+            } else {
+                springProperties.put(name, value);
+            }
+        }
+        System.exit(run(options, springProperties));
+    }
+
+    private static int run(Map<String, String> options, Map<String, Object> springProperties) throws Exception {
+        int products = Integer.parseInt(options.get("products"));
+        int concurrency = Integer.parseInt(options.get("concurrency"));
+        Duration warmup = duration(options.get("warmup"));
+        Duration duration = duration(options.get("duration"));
+        long seed = Long.parseLong(options.get("seed"));
+        Map<Workload.Operation, Integer> mix = Workload.parseMix(options.get("mix"));
+
+        try (ConfigurableApplicationContext context = start(springProperties)) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI base = URI.create("http://localhost:" + port);
+
+            UUID[] ids = Workload.ids(products, seed);
+            long seedStart = System.nanoTime();
+            seed(context.getBean(ProductImportService.class), ids);
+            long seedMillis = (System.nanoTime() - seedStart) / 1_000_000;
+            log("Catálogo de %d produtos carregado em %d ms", products, seedMillis);
+
+            HttpClient http = HttpClient.newBuilder()
+                                        .version(HttpClient.Version.HTTP_1_1)
+                                        .connectTimeout(Duration.ofSeconds(10))
+                                        .build();
+            Workload workload = new Workload(base, ids, mix);
+            awaitNameIndex(http, workload, token("loadtest-setup"));
+
+            EnumMap<Workload.Operation, LoadReport.OperationStats> stats = drive(http, workload, concurrency, seed, warmup, duration);
+
+            ObjectMapper mapper = new ObjectMapper();
+            ObjectNode config = mapper.createObjectNode();
+            config.put("products", products);
+            config.put("concurrency", concurrency);
+            config.put("warmupSeconds", warmup.toSeconds());
+            config.put("durationSeconds", duration.toSeconds());
+            config.put("mix", options.get("mix"));
+            config.put("seed", seed);
+            config.put("database", String.valueOf(springProperties.getOrDefault("spring.datasource.url", "h2:mem")));
+            config.put("profiles", String.join(",", context.getEnvironment().getActiveProfiles()));
+
+            LoadReport reports = new LoadReport();
+            ObjectNode report = reports.build(config, seedMillis, duration.toMillis() / 1000.0, stats);
+            Path file = options.get("report").isEmpty()
+                    ? Path.of(options.get("report-dir"), "products-" + products + ".json")
+                    : Path.of(options.get("report"));
+            reports.write(report, file);
+            log("Relatório: %s", file.toAbsolutePath());
+            log("%s", report.get("total"));
+
+            if (options.get("baseline").isEmpty()) {
+                return 0;
+            }
+            double tolerance = Double.parseDouble(options.get("max-regression"));
+            List<String> comparison = reports.compare(report, Path.of(options.get("baseline")), tolerance);
+            comparison.forEach(line -> log("%s", line));
+            return comparison.stream().anyMatch(line -> line.startsWith("REGRESSÃO")) ? 1 : 0;
+        }
+    }
+
+    private static ConfigurableApplicationContext start(Map<String, Object> overrides) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.datasource.url", "jdbc:h2:mem:loadtest-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        properties.put("server.port", "0");
+        properties.put("management.server.port", "0");
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.com.insper.product.service.ProductImportService", "INFO");
+        // Todos os clientes saem do mesmo IP com sujeitos distintos: o limite por cliente não
+        // deve ser o gargalo medido (o limite adaptativo de concorrência continua ligado)
+        properties.put("product.limits.rate.permits-per-second", "1000000");
+        properties.put("product.limits.rate.burst", "1000000");
+        properties.putAll(overrides);
+        // Como argumentos de linha de comando, e não defaultProperties: precisam valer sobre o application.properties
+        String[] args = properties.entrySet().stream()
+                                  .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                                  .toArray(String[]::new);
+        return new SpringApplicationBuilder(ProductApplication.class).run(args);
+    }
+
+    /** Carrega o catálogo pela importação em CSV (mesmos ids a cada execução: rodar de novo só atualiza). */
+    private static void seed(ProductImportService importService, UUID[] ids) throws IOException {
+        Path file = Files.createTempFile("loadtest-products", ".csv");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writer.write("id,name,price,unit\n");
+                for (int i = 0; i < ids.length; i++) {
+                    writer.write(ids[i] + "," + Workload.name(i) + "," + Workload.price(i) + "," + Workload.unit(i) + "\n");
+                }
+            }
+            ImportResult result = importService.importFile(file, ProductFormat.CSV);
+            if (result.getFailed() > 0) {
+                throw new IllegalStateException("Carga do catálogo com " + result.getFailed() + " erros: " + result.getErrors());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // O índice de nomes é montado depois da subida e responde 503 até ficar pronto
+    private static void awaitNameIndex(HttpClient http, Workload workload, String token) throws Exception {
+        Workload.Client client = new Workload.Client(token, 0);
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            HttpRequest request = workload.request(Workload.Operation.SUGGEST, client);
+            if (http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 503) {
+                return;
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("Índice de nomes não ficou pronto em 10 minutos");
+    }
+
+    private static EnumMap<Workload.Operation, LoadReport.OperationStats> drive(
+            HttpClient http, Workload workload, int concurrency, long seed, Duration warmup, Duration duration)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        log("Carga: %d clientes, %d s de aquecimento e %d s de medição", concurrency, warmup.toSeconds(), duration.toSeconds());
+
+        List<EnumMap<Workload.Operation, LoadReport.OperationStats>> perClient = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            EnumMap<Workload.Operation, LoadReport.OperationStats> stats = emptyStats(workload);
+            perClient.add(stats);
+            Workload.Client client = new Workload.Client(token("loadtest-client-" + i), seed + i);
+            Thread thread = new Thread(() -> clientLoop(http, workload, client, stats, measureFrom, end), "loadtest-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        EnumMap<Workload.Operation, LoadReport.OperationStats> total = emptyStats(workload);
+        for (EnumMap<Workload.Operation, LoadReport.OperationStats> stats : perClient) {
+            stats.forEach((operation, operationStats) -> total.get(operation).add(operationStats));
+        }
+        return total;
+    }
+
+    private static void clientLoop(HttpClient http, Workload workload, Workload.Client client,
+                                   EnumMap<Workload.Operation, LoadReport.OperationStats> stats,
+                                   long measureFrom, long end) {
+        long now;
+        while ((now = System.nanoTime()) < end) {
+            Workload.Operation operation = workload.next(client.random);
+            HttpRequest request = workload.request(operation, client);
+            String status;
+            try {
+                HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                status = Integer.toString(response.statusCode());
+                workload.onResponse(operation, client, response.statusCode(), response.body());
+            } catch (IOException ex) {
+                status = "error";
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long finished = System.nanoTime();
+            if (now >= measureFrom && finished <= end) {
+                stats.get(operation).record(status, (finished - now) / 1000);
+            }
+        }
+    }
+
+    private static EnumMap<Workload.Operation, LoadReport.OperationStats> emptyStats(Workload workload) {
+        EnumMap<Workload.Operation, LoadReport.OperationStats> stats = new EnumMap<>(Workload.Operation.class);
+        workload.mix().forEach((operation, weight) -> {
+            if (weight > 0) {
+                stats.put(operation, new LoadReport.OperationStats());
+            }
+        });
+        return stats;
+    }
+
+    private static String token(String subject) {
+        return Jwts.builder()
+                   .setSubject(subject)
+                   .setExpiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(12)))
+                   .signWith(SignatureAlgorithm.HS256, JWT_SECRET.getBytes())
+                   .compact();
+    }
+
+    // "30s", "2m" ou segundos sem unidade
+    private static Duration duration(String value) {
+        String text = value.trim().toLowerCase();
+        if (text.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2)));
+        }
+        if (text.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(text.substring(0, text.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(text.endsWith("s") ? text.substring(0, text.length() - 1) : text));
+    }
+
+    private static void log(String format, Object... args) {
+        System.out.println("[loadtest] " + String.format(format, args));
+    }
+}
@@ -0,0 +1,224 @@
+package com.insper.product.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Operações da carga mista e o catálogo gerado para ela. Os nomes combinam um substantivo,
+ * um adjetivo e o número do produto, para que busca por prefixo e sugestões tenham muitos
+ * candidatos; ids e nomes saem de uma semente fixa, então toda execução usa o mesmo catálogo.
+ */
+final class Workload {
+
+    static final String[] NOUNS = {
+        "Caneta", "Lápis", "Caderno", "Borracha", "Régua", "Tesoura", "Cola", "Pasta", "Mochila", "Agenda",
+        "Grampeador", "Marcador", "Apontador", "Estojo", "Papel", "Envelope", "Clipe", "Fita", "Calculadora", "Prancheta"
+    };
+
+    static final String[] ADJECTIVES = {
+        "azul", "preto", "vermelho", "verde", "escolar", "premium", "grande", "pequeno", "A4", "neon"
+    };
+
+    private static final String[] SORTS = {"id", "name", "price"};
+
+    private static final Pattern NEXT_CURSOR = Pattern.compile("\"nextCursor\"\\s*:\\s*\"([^\"]+)\"");
+
+    // Mistura padrão (pesos relativos); "catalog" (GET /products inteiro) fica de fora por padrão
+    static final String DEFAULT_MIX = "get:40,page:10,search:10,suggest:10,lookup:10,update:10,prices:10";
+
+    enum Operation {
+        CATALOG, GET, PAGE, SEARCH, SUGGEST, LOOKUP, UPDATE, PRICES;
+
+        String key() {
+            return name().toLowerCase();
+        }
+
+        static Operation from(String key) {
+            for (Operation operation : values()) {
+                if (operation.key().equals(key.trim())) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Operação desconhecida na mistura: " + key
+                    + " (use " + Arrays.toString(values()).toLowerCase() + ")");
+        }
+    }
+
+    private final URI base;
+    private final UUID[] ids;
+    private final Map<Operation, Integer> mix;
+    private final Operation[] wheel;
+
+    Workload(URI base, UUID[] ids, Map<Operation, Integer> mix) {
+        this.base = base;
+        this.ids = ids;
+        this.mix = mix;
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        if (total <= 0) {
+            throw new IllegalArgumentException("A mistura precisa de ao menos uma operação com peso");
+        }
+        this.wheel = new Operation[total];
+        int next = 0;
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                wheel[next++] = entry.getKey();
+            }
+        }
+    }
+
+    /** "get:40,update:10": operação e peso relativo, na ordem dada. */
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] pair = part.split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Item inválido na mistura: " + part + " (use operação:peso)");
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Peso negativo na mistura: " + part);
+            }
+            weights.put(Operation.from(pair[0]), weight);
+        }
+        return weights;
+    }
+
+    static UUID[] ids(int count, long seed) {
+        Random random = new Random(seed);
+        UUID[] ids = new UUID[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = new UUID(random.nextLong(), random.nextLong());
+        }
+        return ids;
+    }
+
+    static String name(int i) {
+        return NOUNS[i % NOUNS.length] + " " + ADJECTIVES[(i / NOUNS.length) % ADJECTIVES.length] + " " + i;
+    }
+
+    static double price(int i) {
+        return (i % 10_000) / 100.0 + 0.99;
+    }
+
+    static String unit(int i) {
+        return i % 3 == 0 ? "kg" : "un";
+    }
+
+    Map<Operation, Integer> mix() {
+        return mix;
+    }
+
+    Operation next(Random random) {
+        return wheel[random.nextInt(wheel.length)];
+    }
+
+    /** Estado de um cliente: o token e o cursor da paginação em andamento. */
+    static final class Client {
+        final String authorization;
+        final Random random;
+        String cursor;
+        String cursorSort = "id";
+
+        Client(String token, long seed) {
+            this.authorization = "Bearer " + token;
+            this.random = new Random(seed);
+        }
+    }
+
+    HttpRequest request(Operation operation, Client client) {
+        Random random = client.random;
+        switch (operation) {
+            case CATALOG:
+                return get(client, "/products");
+            case GET:
+                return get(client, "/products/" + randomId(random));
+            case PAGE:
+                if (client.cursor == null) {
+                    client.cursorSort = SORTS[random.nextInt(SORTS.length)];
+                }
+                return get(client, "/products/page?size=50&sort=" + client.cursorSort
+                        + (client.cursor == null ? "" : "&after=" + encode(client.cursor)));
+            case SEARCH:
+                return get(client, "/products/search?size=20&name=" + encode(NOUNS[random.nextInt(NOUNS.length)]
+                        + " " + ADJECTIVES[random.nextInt(ADJECTIVES.length)]));
+            case SUGGEST:
+                return get(client, "/products/suggest?limit=10&q=" + encode(typo(NOUNS[random.nextInt(NOUNS.length)], random)));
+            case LOOKUP:
+                StringBuilder lookup = new StringBuilder("[");
+                for (int i = 0; i < 20; i++) {
+                    lookup.append(i == 0 ? "\"" : ",\"").append(randomId(random)).append('"');
+                }
+                return post(client, "/products/lookup", lookup.append(']').toString());
+            case UPDATE:
+                int product = random.nextInt(ids.length);
+                return HttpRequest.newBuilder(base.resolve("/products/" + ids[product]))
+                                  .header("Authorization", client.authorization)
+                                  .header("Content-Type", "application/json")
+                                  .PUT(HttpRequest.BodyPublishers.ofString("{\"name\":\"" + name(product)
+                                          + "\",\"price\":" + (price(product) + random.nextInt(100) / 100.0)
+                                          + ",\"unit\":\"" + unit(product) + "\"}"))
+                                  .build();
+            case PRICES:
+                StringBuilder prices = new StringBuilder("[");
+                for (int i = 0; i < 50; i++) {
+                    prices.append(i == 0 ? "" : ",").append("{\"id\":\"").append(randomId(random))
+                          .append("\",\"price\":").append(random.nextInt(10_000) / 100.0).append('}');
+                }
+                return post(client, "/products/prices", prices.append(']').toString());
+            default:
+                throw new IllegalStateException("Operação sem requisição: " + operation);
+        }
+    }
+
+    /** Guarda o cursor da próxima página (ou recomeça do início na última). */
+    void onResponse(Operation operation, Client client, int status, byte[] body) {
+        if (operation != Operation.PAGE) {
+            return;
+        }
+        client.cursor = null;
+        if (status == 200) {
+            Matcher matcher = NEXT_CURSOR.matcher(new String(body, StandardCharsets.UTF_8));
+            if (matcher.find()) {
+                client.cursor = matcher.group(1);
+            }
+        }
+    }
+
+    private UUID randomId(Random random) {
+        return ids[random.nextInt(ids.length)];
+    }
+
+    // Uma letra a menos, como quem digita rápido
+    private static String typo(String word, Random random) {
+        int drop = 1 + random.nextInt(word.length() - 1);
+        return word.substring(0, drop) + word.substring(Math.min(word.length(), drop + 1));
+    }
+
+    private HttpRequest get(Client client, String path) {
+        return HttpRequest.newBuilder(base.resolve(path))
+                          .header("Authorization", client.authorization)
+                          .GET()
+                          .build();
+    }
+
+    private HttpRequest post(Client client, String path, String json) {
+        return HttpRequest.newBuilder(base.resolve(path))
+                          .header("Authorization", client.authorization)
+                          .header("Content-Type", "application/json")
+                          .POST(HttpRequest.BodyPublishers.ofString(json))
+                          .build();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -1,11 +1,25 @@
 package com.insper.product;
 
+import com.insper.product.transfer.ProductTransferRunner;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
 
 @SpringBootApplication
 public class ProductApplication {
     public static void main(String[] args) {
-        SpringApplication.run(ProductApplication.class, args);
+        if (!ProductTransferRunner.isCommand(args)) {
+            SpringApplication.run(ProductApplication.class, args);
+            return;
+        }
+        // --import=/--export=: sem servidor web nem índice de busca; encerra ao terminar
+        SpringApplication application = new SpringApplication(ProductApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        application.setDefaultProperties(Map.of("product.search.enabled", "false"));
+        ConfigurableApplicationContext context = application.run(args);
+        System.exit(SpringApplication.exit(context));
     }
 }
@@ -0,0 +1,69 @@
+package com.insper.product.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Modo de execução das requisições, escolhido por {@code product.execution.mode}:
+ * <ul>
+ *   <li>{@code platform} (padrão): pool de threads do Tomcat ({@code server.tomcat.threads.max});</li>
+ *   <li>{@code virtual}: uma virtual thread por requisição, inclusive nas respostas
+ *       assíncronas (streaming). Uma requisição esperando o JDBC deixa de prender
+ *       uma thread de plataforma; o limite passa a ser o pool de conexões.</li>
+ * </ul>
+ * O build continua em Java 17, então o executor é obtido por reflexão; em JDKs sem
+ * virtual threads (anteriores ao 21) o modo {@code virtual} cai para {@code platform}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "product.execution.mode", havingValue = "virtual")
+public class ExecutionConfig implements WebMvcConfigurer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionConfig.class);
+
+    private final ExecutorService virtualThreads = newVirtualThreadPerTaskExecutor();
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandler() {
+        return protocolHandler -> {
+            if (virtualThreads != null) {
+                protocolHandler.setExecutor(virtualThreads);
+                logger.info("Tomcat atendendo requisições em virtual threads");
+            }
+        };
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        if (virtualThreads != null) {
+            configurer.setTaskExecutor(new TaskExecutorAdapter(virtualThreads));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (virtualThreads != null) {
+            virtualThreads.shutdown();
+        }
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            logger.warn("product.execution.mode=virtual requer JDK 21+ (atual: {}); usando threads de plataforma",
+                    Runtime.version());
+            return null;
+        }
+    }
+}
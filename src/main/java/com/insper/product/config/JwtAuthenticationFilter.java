@@ -1,7 +1,14 @@
 package com.insper.product.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -16,19 +23,60 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Filtro que intercepta TODAS as requisições, extrai o token JWT do header "Authorization"
  * e, se válido, insere uma Authentication no SecurityContextHolder para autenticar o usuário.
+ *
+ * Tokens já verificados ficam em cache (chave = SHA-256 do token, nunca o token em si)
+ * até o seu "exp", então chamadas repetidas com o mesmo bearer não refazem o HMAC nem o parse.
  */
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
+    private static final long MAX_CACHED_TOKENS = 10_000;
+
+    // Limite para tokens sem "exp" (e teto geral), para que revogações no Auth Service valham em algum momento
+    private static final Duration MAX_CACHE_TTL = Duration.ofMinutes(5);
+
     // Pode injetar via @Value("${jwt.secret}") se preferir, mas para simplificar:
     private final String jwtSecret = "MINHA_CHAVE_SECRETA";
 
+    private final byte[] signingKey = jwtSecret.getBytes();
+
+    private final WebAuthenticationDetailsSource detailsSource = new WebAuthenticationDetailsSource();
+
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    private final Timer cachedTimer;
+    private final Timer verifiedTimer;
+    private final Timer invalidTimer;
+
+    public JwtAuthenticationFilter() {
+        this(Metrics.globalRegistry);
+    }
+
+    public JwtAuthenticationFilter(MeterRegistry meterRegistry) {
+        this.verifiedTokens = Caffeine.newBuilder()
+                                      .maximumSize(MAX_CACHED_TOKENS)
+                                      .expireAfter(new TokenExpiry())
+                                      .recordStats()
+                                      .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt.tokens");
+        this.cachedTimer = validationTimer(meterRegistry, "cached");
+        this.verifiedTimer = validationTimer(meterRegistry, "verified");
+        this.invalidTimer = validationTimer(meterRegistry, "invalid");
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
@@ -37,23 +85,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && validateJwtToken(jwt)) {
-                Claims claims = Jwts.parser()
-                                   .setSigningKey(jwtSecret.getBytes())
-                                   .parseClaimsJws(jwt)
-                                   .getBody();
-
-                String username = claims.getSubject();
+            if (jwt != null) {
+                VerifiedToken token = resolve(jwt);
+                if (token != null) {
+                    UsernamePasswordAuthenticationToken authentication =
+                            new UsernamePasswordAuthenticationToken(token.principal, null, token.principal.getAuthorities());
+                    authentication.setDetails(detailsSource.buildDetails(request));
 
-                // Se seu token contiver roles, você extraíria aqui e populava as authorities.
-                // Para simplificar, cria um usuário “dummy” sem roles:
-                User principal = new User(username, "", new ArrayList<>());
-
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             }
         } catch (Exception ex) {
             logger.error("Não foi possível validar o token JWT: {}", ex.getMessage());
@@ -74,12 +114,46 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     }
 
     /**
-     * Valida o JWT (assinatura, formato, expiração), retornando true se for válido.
+     * Devolve o token verificado a partir do cache ou, na falta dele, validando o JWT
+     * uma única vez. Retorna null se o token for inválido (tokens inválidos não são cacheados).
+     */
+    private VerifiedToken resolve(String jwt) {
+        long start = System.nanoTime();
+        String key = hash(jwt);
+        VerifiedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            cachedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return cached;
+        }
+
+        VerifiedToken verified = validateJwtToken(jwt);
+        if (verified == null) {
+            invalidTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return null;
+        }
+        verifiedTokens.put(key, verified);
+        verifiedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return verified;
+    }
+
+    /**
+     * Valida o JWT (assinatura, formato, expiração) com um único parse, retornando
+     * o principal e o instante de expiração, ou null se for inválido.
      */
-    private boolean validateJwtToken(String authToken) {
+    private VerifiedToken validateJwtToken(String authToken) {
         try {
-            Jwts.parser().setSigningKey(jwtSecret.getBytes()).parseClaimsJws(authToken);
-            return true;
+            Claims claims = Jwts.parser()
+                               .setSigningKey(signingKey)
+                               .parseClaimsJws(authToken)
+                               .getBody();
+
+            // Se seu token contiver roles, você extrairia aqui e populava as authorities.
+            // Para simplificar, cria um usuário “dummy” sem roles:
+            User principal = new User(claims.getSubject(), "", new ArrayList<>());
+
+            Date expiration = claims.getExpiration();
+            long expiresAt = expiration == null ? Long.MAX_VALUE : expiration.getTime();
+            return new VerifiedToken(principal, expiresAt);
         } catch (io.jsonwebtoken.SignatureException e) {
             logger.error("Assinatura JWT inválida: {}", e.getMessage());
         } catch (io.jsonwebtoken.ExpiredJwtException e) {
@@ -89,6 +163,54 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         } catch (Exception e) {
             logger.error("Erro ao validar o token JWT: {}", e.getMessage());
         }
-        return false;
+        return null;
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    private static Timer validationTimer(MeterRegistry registry, String result) {
+        return Timer.builder("jwt.validation")
+                    .description("Tempo para resolver o token JWT de uma requisição")
+                    .tag("result", result)
+                    .register(registry);
+    }
+
+    private static final class VerifiedToken {
+        final User principal;
+        final long expiresAtMillis;
+
+        VerifiedToken(User principal, long expiresAtMillis) {
+            this.principal = principal;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    /**
+     * Cada entrada expira no "exp" do próprio token, limitado a MAX_CACHE_TTL.
+     */
+    private static final class TokenExpiry implements Expiry<String, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            long remainingMillis = value.expiresAtMillis - System.currentTimeMillis();
+            long ttlMillis = Math.max(0, Math.min(remainingMillis, MAX_CACHE_TTL.toMillis()));
+            return TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,54 @@
+package com.insper.product.config;
+
+import com.insper.product.metrics.InstrumentedDataSource;
+import com.insper.product.metrics.QueryMetrics;
+import com.insper.product.metrics.RequestMetricsFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Instrumentação de latência: comandos JDBC (db.query), JDBC por requisição
+ * (http.db.*) e, via Actuator, latência por endpoint (http.server.requests).
+ * Tudo é exportado em formato Prometheus em /actuator/prometheus, na porta de
+ * gerenciamento (management.server.port), fora da porta da API.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public QueryMetrics queryMetrics(MeterRegistry registry) {
+        return new QueryMetrics(registry);
+    }
+
+    /**
+     * Estático e com ObjectProvider: o pós-processador é criado antes dos demais beans
+     * e não pode puxar o MeterRegistry cedo demais (ele perderia a própria configuração).
+     */
+    @Bean
+    public static BeanPostProcessor instrumentedDataSourcePostProcessor(ObjectProvider<QueryMetrics> queryMetrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof InstrumentedDataSource)) {
+                    return new InstrumentedDataSource((DataSource) bean, queryMetrics::getObject);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<RequestMetricsFilter> requestMetricsFilter(MeterRegistry registry) {
+        FilterRegistrationBean<RequestMetricsFilter> registration =
+                new FilterRegistrationBean<>(new RequestMetricsFilter(registry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,105 @@
+package com.insper.product.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.insper.product.datasource.PoolTuning;
+import com.insper.product.model.Product;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+/**
+ * Ajustes da camada de persistência ligados pelo perfil high-throughput
+ * (application-high-throughput.properties): tamanho e opções de driver dos pools
+ * (PoolTuning) e o cache de segundo nível do Hibernate para Product, com cache de consultas.
+ */
+@Configuration
+public class PersistenceTuningConfig {
+
+    /**
+     * Antes da inicialização: o DataSource do Boot já tem spring.datasource.hikari.*
+     * aplicado e o pool ainda não abriu conexões. Os pools das réplicas não são beans;
+     * o ReplicaDataSourceConfig aplica o mesmo PoolTuning neles.
+     */
+    @Bean
+    public static BeanPostProcessor poolTuningPostProcessor(Environment environment) {
+        PoolTuning tuning = PoolTuning.from(environment);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource) {
+                    tuning.apply((HikariDataSource) bean);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Cache de segundo nível em Caffeine pela API JCache, com as regiões criadas aqui
+     * (limitadas por tamanho e TTL) em vez das padrão do provedor, que não têm limite.
+     */
+    @Configuration
+    @ConditionalOnProperty("product.jpa.second-level-cache.enabled")
+    static class SecondLevelCache {
+
+        @Value("${product.jpa.second-level-cache.max-size:100000}")
+        private long maxSize;
+
+        @Value("${product.jpa.second-level-cache.ttl:10m}")
+        private Duration ttl;
+
+        @Value("${product.jpa.query-cache.max-size:10000}")
+        private long queryCacheMaxSize;
+
+        @Bean(destroyMethod = "close")
+        public CacheManager hibernateCacheManager() {
+            CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                                               .getCacheManager();
+            cacheManager.createCache(Product.CACHE_REGION, region(maxSize, ttl));
+            cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                    region(queryCacheMaxSize, ttl));
+            // Um registro por tabela com o horário da última escrita: não pode sair antes das consultas
+            cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                    region(-1, null));
+            return cacheManager;
+        }
+
+        @Bean
+        public HibernatePropertiesCustomizer secondLevelCacheProperties(CacheManager hibernateCacheManager) {
+            return properties -> {
+                properties.put("hibernate.cache.use_second_level_cache", "true");
+                properties.put("hibernate.cache.use_query_cache", "true");
+                properties.put("hibernate.cache.region.factory_class", "jcache");
+                properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+                properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            };
+        }
+
+        // Por referência: o Hibernate já guarda o estado desmontado (imutável), sem cópia por serialização
+        private static CaffeineConfiguration<Object, Object> region(long maxSize, Duration ttl) {
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setStoreByValue(false);
+            configuration.setStatisticsEnabled(true);
+            if (maxSize >= 0) {
+                configuration.setMaximumSize(OptionalLong.of(maxSize));
+            }
+            if (ttl != null) {
+                configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+            }
+            return configuration;
+        }
+    }
+}
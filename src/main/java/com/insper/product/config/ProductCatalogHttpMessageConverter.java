@@ -0,0 +1,151 @@
+package com.insper.product.config;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.insper.product.metrics.SerializationTimers;
+import com.insper.product.model.ProductCatalog;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Escreve o catálogo (GET /products) direto das colunas de ProductCatalog: nomes de
+ * campo pré-codificados e UUID formatado num buffer de char reaproveitado no lugar de
+ * um UUID.toString() por produto. O JSON é o mesmo da entidade Product (o preço é o
+ * double armazenado, escrito pelo gerador como em GET /products/{id}).
+ *
+ * Cada media type suportado tem a sua JsonFactory (JSON, CBOR, Smile...).
+ */
+public class ProductCatalogHttpMessageConverter extends AbstractHttpMessageConverter<ProductCatalog> {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString PRICE = new SerializedString("price");
+    private static final SerializedString UNIT = new SerializedString("unit");
+    private static final SerializedString VERSION = new SerializedString("version");
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Map<MediaType, JsonFactory> factories;
+    private final SerializationTimers timers;
+
+    public ProductCatalogHttpMessageConverter(JsonFactory json, SerializationTimers timers) {
+        this(Map.of(MediaType.APPLICATION_JSON, json), timers);
+    }
+
+    /**
+     * @param factories fábrica por media type; a primeira é a usada quando o cliente aceita qualquer um
+     */
+    public ProductCatalogHttpMessageConverter(Map<MediaType, JsonFactory> factories, SerializationTimers timers) {
+        this.factories = new LinkedHashMap<>(factories);
+        this.timers = timers;
+        setSupportedMediaTypes(new ArrayList<>(this.factories.keySet()));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ProductCatalog.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected ProductCatalog readInternal(Class<? extends ProductCatalog> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("ProductCatalog é somente leitura", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(ProductCatalog catalog, HttpOutputMessage outputMessage) throws IOException {
+        long start = System.nanoTime();
+        JsonFactory factory = factoryFor(outputMessage.getHeaders().getContentType());
+        try (JsonGenerator json = factory.createGenerator(outputMessage.getBody(), JsonEncoding.UTF8)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            write(catalog, json);
+        } finally {
+            timers.record(start);
+        }
+    }
+
+    private JsonFactory factoryFor(MediaType contentType) {
+        if (contentType != null) {
+            for (Map.Entry<MediaType, JsonFactory> entry : factories.entrySet()) {
+                if (entry.getKey().equalsTypeAndSubtype(contentType)) {
+                    return entry.getValue();
+                }
+            }
+        }
+        return factories.values().iterator().next();
+    }
+
+    /**
+     * Escreve o catálogo como array no gerador informado (JSON ou formato binário).
+     */
+    public static void write(ProductCatalog catalog, JsonGenerator json) throws IOException {
+        char[] uuid = new char[36];
+
+        json.writeStartArray();
+        for (int i = 0, size = catalog.size(); i < size; i++) {
+            json.writeStartObject();
+
+            json.writeFieldName(ID);
+            formatUuid(catalog.idHigh(i), catalog.idLow(i), uuid);
+            json.writeString(uuid, 0, uuid.length);
+
+            json.writeFieldName(NAME);
+            json.writeString(catalog.name(i));
+
+            json.writeFieldName(PRICE);
+            if (catalog.hasPrice(i)) {
+                json.writeNumber(catalog.price(i));
+            } else {
+                json.writeNull();
+            }
+
+            json.writeFieldName(UNIT);
+            json.writeString(catalog.unit(i));
+
+            json.writeFieldName(VERSION);
+            long version = catalog.version(i);
+            if (version == ProductCatalog.NULL) {
+                json.writeNull();
+            } else {
+                json.writeNumber(version);
+            }
+
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+    }
+
+    // Mesmo formato de UUID.toString(): 8-4-4-4-12 dígitos hexadecimais minúsculos
+    static void formatUuid(long high, long low, char[] buffer) {
+        hex(high >>> 32, buffer, 0, 8);
+        buffer[8] = '-';
+        hex(high >>> 16, buffer, 9, 4);
+        buffer[13] = '-';
+        hex(high, buffer, 14, 4);
+        buffer[18] = '-';
+        hex(low >>> 48, buffer, 19, 4);
+        buffer[23] = '-';
+        hex(low, buffer, 24, 12);
+    }
+
+    private static void hex(long value, char[] buffer, int offset, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            buffer[i] = HEX[(int) (value & 0xf)];
+            value >>>= 4;
+        }
+    }
+}
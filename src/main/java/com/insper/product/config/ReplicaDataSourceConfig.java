@@ -0,0 +1,122 @@
+package com.insper.product.config;
+
+import com.insper.product.datasource.PoolTuning;
+import com.insper.product.datasource.ReadYourWrites;
+import com.insper.product.datasource.ReplicaRoutingDataSource;
+import com.insper.product.datasource.ReplicaSet;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Réplicas de leitura: com product.datasource.replicas[n].url configurado, transações
+ * read-only vão para uma réplica e as demais para a primária (spring.datasource.*).
+ * Sem réplicas, esta configuração não é carregada e o DataSource é o do Boot.
+ *
+ * Os pools não são beans: só o DataSource de roteamento é exposto (e instrumentado pelo
+ * MetricsConfig). Todos usam as mesmas opções de spring.datasource.hikari.* e de
+ * product.datasource.pool.* (PoolTuning).
+ */
+@Configuration
+@ConditionalOnProperty("product.datasource.replicas[0].url")
+public class ReplicaDataSourceConfig {
+
+    @Value("${product.datasource.replica-selection:round-robin}")
+    private String replicaSelection;
+
+    // Por quanto tempo depois de escrever um cliente lê da primária
+    @Value("${product.datasource.read-your-writes:2s}")
+    private Duration readYourWritesWindow;
+
+    @Bean
+    public ReplicaSet replicaSet(DataSourceProperties properties, Environment environment) {
+        Binder binder = Binder.get(environment);
+        PoolTuning tuning = PoolTuning.from(environment);
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null) {
+            primary.setPoolName("primary");
+        }
+        tuning.apply(primary);
+
+        List<Replica> configured = binder.bind("product.datasource.replicas", Bindable.listOf(Replica.class))
+                                         .orElse(List.of());
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < configured.size(); i++) {
+            Replica replica = configured.get(i);
+            // Sem credenciais próprias, a réplica usa as da primária
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(replica.getUrl())
+                    .username(replica.getUsername() != null ? replica.getUsername() : properties.determineUsername())
+                    .password(replica.getPassword() != null ? replica.getPassword() : properties.determinePassword())
+                    .build();
+            binder.bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+            String name = "replica-" + i;
+            dataSource.setPoolName(name);
+            tuning.apply(dataSource);
+            replicas.put(name, dataSource);
+        }
+        return new ReplicaSet(primary, replicas, ReplicaSet.Selection.from(replicaSelection));
+    }
+
+    @Bean
+    public ReadYourWrites readYourWrites(@Value("${product.limits.rate.max-clients:100000}") long maxClients) {
+        return new ReadYourWrites(readYourWritesWindow, maxClients);
+    }
+
+    @Bean
+    public DataSource dataSource(ReplicaSet replicaSet, ReadYourWrites readYourWrites) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(replicaSet, readYourWrites));
+    }
+
+    @Bean
+    public MeterBinder replicaMetrics(ReplicaSet replicaSet) {
+        return registry -> {
+            for (ReplicaSet.Replica replica : replicaSet.getReplicas()) {
+                Gauge.builder("db.replica.latency", replica, ReplicaSet.Replica::getLatencyMillis)
+                     .description("Média móvel da latência das sondagens")
+                     .tag("replica", replica.getName())
+                     .baseUnit("milliseconds")
+                     .register(registry);
+                Gauge.builder("db.replica.healthy", replica, r -> r.isHealthy() ? 1 : 0)
+                     .tag("replica", replica.getName())
+                     .register(registry);
+            }
+        };
+    }
+
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+
+        public String getUrl() { return url; }
+
+        public void setUrl(String url) { this.url = url; }
+
+        public String getUsername() { return username; }
+
+        public void setUsername(String username) { this.username = username; }
+
+        public String getPassword() { return password; }
+
+        public void setPassword(String password) { this.password = password; }
+    }
+}
@@ -0,0 +1,10 @@
+package com.insper.product.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Tarefas periódicas: poller e retenção do change feed, gravação da fila de preços
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,7 +1,18 @@
 package com.insper.product.config;
 
+import com.insper.product.limit.ConcurrencyLimiter;
+import com.insper.product.limit.LoadSheddingFilter;
+import com.insper.product.limit.RateLimiter;
+import com.insper.product.metrics.QueryMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
@@ -10,7 +21,13 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.stream.Collectors;
 
 @Configuration
 @EnableWebSecurity
@@ -30,9 +47,60 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         auth.inMemoryAuthentication();
     }
 
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    // Fonte da latência do banco para o limite adaptativo (ausente nos testes de controller)
+    @Autowired
+    private ObjectProvider<QueryMetrics> queryMetrics;
+
+    @Value("${product.limits.enabled:true}")
+    private boolean limitsEnabled;
+
+    @Value("${product.limits.rate.permits-per-second:100}")
+    private double permitsPerSecond;
+
+    @Value("${product.limits.rate.burst:200}")
+    private int burst;
+
+    @Value("${product.limits.rate.max-clients:100000}")
+    private long maxClients;
+
+    @Value("${product.limits.concurrency.initial:100}")
+    private int initialConcurrency;
+
+    @Value("${product.limits.concurrency.min:10}")
+    private int minConcurrency;
+
+    @Value("${product.limits.concurrency.max:400}")
+    private int maxConcurrency;
+
+    @Value("${product.limits.concurrency.db-latency-target:50ms}")
+    private Duration dbLatencyTarget;
+
+    @Value("${product.limits.concurrency.window:100ms}")
+    private Duration adjustmentWindow;
+
+    // Porta efetiva do contexto de gerenciamento; -1 enquanto ele não sobe ou quando o actuator divide a porta da API
+    private volatile int managementPort = -1;
+
+    @EventListener
+    public void onWebServerInitialized(WebServerInitializedEvent event) {
+        if ("management".equals(event.getApplicationContext().getServerNamespace())) {
+            managementPort = event.getWebServer().getPort();
+        }
+    }
+
+    private RequestMatcher onManagementPort(String... patterns) {
+        RequestMatcher paths = new OrRequestMatcher(Arrays.stream(patterns)
+                .map(AntPathRequestMatcher::new)
+                .collect(Collectors.toList()));
+        return request -> request.getLocalPort() == managementPort && paths.matches(request);
+    }
+
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
-        return new JwtAuthenticationFilter();
+        return new JwtAuthenticationFilter(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
     }
 
     @Override
@@ -44,6 +112,9 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
             .and()
             .authorizeRequests()
                .antMatchers("/products", "/products/*").permitAll()
+               .antMatchers("/actuator/health").permitAll()
+               // Métricas só na porta de gerenciamento (management.server.port); na porta da API exigem autenticação
+               .requestMatchers(onManagementPort("/actuator/metrics", "/actuator/metrics/*", "/actuator/prometheus")).permitAll()
                // Exige ROLE_ADMIN para POST/PUT/DELETE:
                .antMatchers("/products/**").hasRole("ADMIN")
                .anyRequest().authenticated()
@@ -56,6 +127,20 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
             .and()
             // Insere o filtro JWT antes do filtro padrão de autenticação
             .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
+
+        if (limitsEnabled) {
+            // Depois do JWT, para limitar por sujeito do token quando houver um
+            http.addFilterAfter(loadSheddingFilter(), UsernamePasswordAuthenticationFilter.class);
+        }
+    }
+
+    // Não é @Bean: como Filter, o Spring Boot o registraria também fora da cadeia de segurança
+    private LoadSheddingFilter loadSheddingFilter() {
+        ConcurrencyLimiter concurrency = new ConcurrencyLimiter(initialConcurrency, minConcurrency, maxConcurrency,
+                dbLatencyTarget, adjustmentWindow);
+        queryMetrics.ifAvailable(metrics -> metrics.addListener(concurrency::onLatency));
+        return new LoadSheddingFilter(new RateLimiter(permitsPerSecond, burst, maxClients), concurrency,
+                meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
     }
 
 
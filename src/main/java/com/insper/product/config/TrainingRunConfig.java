@@ -0,0 +1,60 @@
+package com.insper.product.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+/**
+ * Execução de treino do arquivo AppCDS (scripts/cds-archive.sh), com
+ * {@code product.startup.exit-after-ready=true}: sobe a aplicação inteira, faz algumas
+ * requisições para carregar também as classes do caminho de leitura (MVC, segurança,
+ * JSON, JPA) e encerra, para que a JVM grave no arquivo as classes carregadas.
+ */
+@Configuration
+@ConditionalOnProperty(name = "product.startup.exit-after-ready", havingValue = "true")
+public class TrainingRunConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrainingRunConfig.class);
+
+    private static final String[] WARMUP_PATHS = {"/products", "/products/page"};
+
+    // Servido na porta de gerenciamento (management.server.port)
+    private static final String MANAGEMENT_WARMUP_PATH = "/actuator/health";
+
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        ApplicationContext context = event.getApplicationContext();
+        if (context instanceof WebServerApplicationContext) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            warmUp(port, WARMUP_PATHS);
+            // local.management.port só existe quando o actuator tem porta própria
+            int managementPort = context.getEnvironment().getProperty("local.management.port", Integer.class, port);
+            warmUp(managementPort, MANAGEMENT_WARMUP_PATH);
+        }
+        logger.info("Execução de treino concluída; encerrando");
+        System.exit(SpringApplication.exit(context));
+    }
+
+    private static void warmUp(int port, String... paths) {
+        HttpClient client = HttpClient.newHttpClient();
+        for (String path : paths) {
+            try {
+                HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build();
+                client.send(request, HttpResponse.BodyHandlers.discarding());
+            } catch (Exception ex) {
+                logger.warn("Requisição de aquecimento {} falhou: {}", path, ex.getMessage());
+            }
+        }
+    }
+}
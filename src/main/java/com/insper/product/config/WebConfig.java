@@ -0,0 +1,72 @@
+package com.insper.product.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.insper.product.datasource.ReadYourWrites;
+import com.insper.product.metrics.SerializationTimers;
+import com.insper.product.metrics.TimedJackson2HttpMessageConverter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    // Só existe com réplicas de leitura configuradas (ReplicaDataSourceConfig)
+    @Autowired
+    private ObjectProvider<ReadYourWrites> readYourWrites;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        readYourWrites.ifAvailable(registry::addInterceptor);
+    }
+
+    /**
+     * Troca o conversor JSON padrão pela versão cronometrada, mantendo o mesmo ObjectMapper,
+     * e põe à frente dele o conversor dedicado do catálogo, nos mesmos formatos que os
+     * conversores Jackson registrados: JSON e, com jackson-dataformat-cbor/-smile no
+     * classpath, application/cbor e application/x-jackson-smile (Accept do cliente).
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        SerializationTimers timers = new SerializationTimers(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+        Map<MediaType, JsonFactory> catalogFormats = new LinkedHashMap<>();
+        int jsonIndex = -1;
+        for (int i = 0; i < converters.size(); i++) {
+            HttpMessageConverter<?> converter = converters.get(i);
+            if (converter.getClass() == MappingJackson2HttpMessageConverter.class) {
+                MappingJackson2HttpMessageConverter jackson = (MappingJackson2HttpMessageConverter) converter;
+                converters.set(i, new TimedJackson2HttpMessageConverter(jackson.getObjectMapper(), timers));
+                catalogFormats.put(MediaType.APPLICATION_JSON, jackson.getObjectMapper().getFactory());
+                jsonIndex = i;
+            }
+        }
+        for (HttpMessageConverter<?> converter : converters) {
+            if (converter instanceof MappingJackson2CborHttpMessageConverter) {
+                catalogFormats.put(MediaType.APPLICATION_CBOR,
+                        ((MappingJackson2CborHttpMessageConverter) converter).getObjectMapper().getFactory());
+            } else if (converter instanceof MappingJackson2SmileHttpMessageConverter) {
+                catalogFormats.put(new MediaType("application", "x-jackson-smile"),
+                        ((MappingJackson2SmileHttpMessageConverter) converter).getObjectMapper().getFactory());
+            }
+        }
+        if (jsonIndex >= 0) {
+            converters.add(jsonIndex, new ProductCatalogHttpMessageConverter(catalogFormats, timers));
+        }
+    }
+}
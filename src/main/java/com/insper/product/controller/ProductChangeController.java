@@ -0,0 +1,56 @@
+package com.insper.product.controller;
+
+import com.insper.product.model.ProductChangesPage;
+import com.insper.product.service.ProductChangeFeed;
+import com.insper.product.service.ProductChangeFeed.ChangesExpiredException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Change feed dos produtos, para serviços que mantêm uma cópia do catálogo:
+ * carregam GET /products uma vez e depois seguem as mudanças a partir do seq do header
+ * X-Feed-Seq dessa resposta (since=0 só vale enquanto nenhum evento saiu da retenção).
+ */
+@RestController
+@RequestMapping("/products/changes")
+public class ProductChangeController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    @Autowired
+    private ProductChangeFeed feed;
+
+    // CONSULTAR: ?since=<seq>&limit=
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ProductChangesPage getChanges(@RequestParam(defaultValue = "0") long since,
+                                         @RequestParam(defaultValue = "500") int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "limit deve estar entre 1 e " + MAX_LIMIT);
+        }
+        return feed.changesSince(since, limit);
+    }
+
+    // ASSINAR (Accept: text/event-stream): ?since=<seq>, ou o header Last-Event-ID ao reconectar
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam(required = false) Long since,
+                             @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        long from = lastEventId != null ? lastEventId : since != null ? since : 0;
+        return feed.subscribe(from);
+    }
+
+    @ExceptionHandler(ChangesExpiredException.class)
+    public ResponseEntity<String> handleExpired(ChangesExpiredException ex) {
+        return ResponseEntity.status(HttpStatus.GONE).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body(ex.getMessage());
+    }
+}
@@ -1,12 +1,41 @@
 package com.insper.product.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insper.product.model.BatchResult;
+import com.insper.product.model.ImportResult;
+import com.insper.product.model.PriceUpdate;
 import com.insper.product.model.Product;
+import com.insper.product.model.ProductCatalog;
+import com.insper.product.model.ProductLookupResult;
+import com.insper.product.model.ProductPage;
+import com.insper.product.model.ProductSearchQuery;
+import com.insper.product.model.ProductSearchResult;
+import com.insper.product.model.ProductSort;
+import com.insper.product.model.ProductSuggestion;
+import com.insper.product.search.ProductNameIndex;
+import com.insper.product.service.PriceUpdateQueue;
+import com.insper.product.service.ProductBatchService;
+import com.insper.product.service.ProductExportService;
+import com.insper.product.service.ProductImportService;
 import com.insper.product.service.ProductService;
+import com.insper.product.transfer.ProductFormat;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.List;
 import java.util.Optional;
@@ -16,55 +45,275 @@ import java.util.UUID;
 @RequestMapping("/products")
 public class ProductController {
 
+    private static final int MAX_PAGE_SIZE = 500;
+
+    // A busca pagina com OFFSET: o banco lê e descarta todas as linhas anteriores à página.
+    // Acima deste deslocamento a requisição é recusada (para percorrer tudo, use /products/page)
+    private static final int MAX_SEARCH_OFFSET = 10_000;
+
+    private static final int MAX_SUGGESTIONS = 50;
+
+    private static final String FEED_SEQ_HEADER = "X-Feed-Seq";
+
     @Autowired
     private ProductService service;
 
+    @Autowired
+    private ProductBatchService batchService;
+
+    @Autowired
+    private PriceUpdateQueue priceQueue;
+
+    @Autowired
+    private ProductImportService importService;
+
+    @Autowired
+    private ProductExportService exportService;
+
+    @Autowired
+    private ProductNameIndex nameIndex;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Value("${product.batch.max-items:50000}")
+    private int maxBatchItems;
+
+    @Value("${product.lookup.max-ids:1000}")
+    private int maxLookupIds;
+
+    @Value("${product.prices.flush-interval-ms:200}")
+    private long priceFlushIntervalMs;
+
     // LISTAR TODOS (pode ser público ou exigir TOKEN, conforme enunciado)
+    // Com ETag: se o If-None-Match bater, o Spring responde 304 sem serializar o corpo.
+    // O corpo é escrito das colunas do catálogo por ProductCatalogHttpMessageConverter.
+    // X-Feed-Seq: seq do change feed já refletido no catálogo, o since para seguir as mudanças
     @GetMapping
-    public List<Product> getAll() {
-        return service.findAll();
+    public ResponseEntity<ProductCatalog> getAll() {
+        ProductCatalog catalog = service.findCatalog();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(catalog.getEtag());
+        if (catalog.getFeedSeq() >= 0) {
+            response.header(FEED_SEQ_HEADER, Long.toString(catalog.getFeedSeq()));
+        }
+        return response.body(catalog);
+    }
+
+    // LISTAR PAGINADO (keyset): ?size=&after=<cursor>&sort=id|name|price
+    @GetMapping("/page")
+    public ProductPage getPage(@RequestParam(defaultValue = "50") int size,
+                               @RequestParam(required = false) String after,
+                               @RequestParam(defaultValue = "id") String sort) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "size deve estar entre 1 e " + MAX_PAGE_SIZE);
+        }
+        return service.findPage(ProductSort.from(sort), after, size);
+    }
+
+    // BUSCAR: ?name=&match=prefix|contains&minPrice=&maxPrice=&unit=&sort=name|price|id&direction=asc|desc&page=&size=
+    @GetMapping("/search")
+    public ProductSearchResult search(@RequestParam(required = false) String name,
+                                      @RequestParam(defaultValue = "prefix") String match,
+                                      @RequestParam(required = false) Double minPrice,
+                                      @RequestParam(required = false) Double maxPrice,
+                                      @RequestParam(required = false) String unit,
+                                      @RequestParam(defaultValue = "name") String sort,
+                                      @RequestParam(defaultValue = "asc") String direction,
+                                      @RequestParam(defaultValue = "0") int page,
+                                      @RequestParam(defaultValue = "20") int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE || page < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "page deve ser >= 0 e size entre 1 e " + MAX_PAGE_SIZE);
+        }
+        if ((long) page * size > MAX_SEARCH_OFFSET) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A busca vai até o item " + MAX_SEARCH_OFFSET + "; refine os filtros ou use /products/page");
+        }
+        ProductSearchQuery query = new ProductSearchQuery();
+        query.setName(name);
+        query.setNameMatch(ProductSearchQuery.NameMatch.from(match));
+        query.setMinPrice(minPrice);
+        query.setMaxPrice(maxPrice);
+        query.setUnit(unit);
+        query.setSort(ProductSort.from(sort));
+        query.setDescending("desc".equalsIgnoreCase(direction));
+        query.setPage(page);
+        query.setSize(size);
+        return service.search(query);
+    }
+
+    // SUGERIR (autocompletar, tolera erros de digitação): ?q=&limit=, pelo índice de nomes em memória
+    @GetMapping("/suggest")
+    public List<ProductSuggestion> suggest(@RequestParam String q,
+                                           @RequestParam(defaultValue = "10") int limit) {
+        if (q.isBlank() || limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "q não pode ser vazio e limit deve estar entre 1 e " + MAX_SUGGESTIONS);
+        }
+        return nameIndex.suggest(q, limit);
+    }
+
+    // LISTAR TODOS EM STREAMING: escreve o array JSON à medida que as linhas chegam do banco.
+    // Na própria thread da requisição (e não com StreamingResponseBody) para que catálogos
+    // grandes não esbarrem no timeout de requisições assíncronas, como o /export
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public void stream(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (JsonGenerator gen = mapper.getFactory().createGenerator(response.getOutputStream())) {
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            gen.writeStartArray();
+            service.streamAll(product -> {
+                try {
+                    gen.writeObject(product);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            gen.writeEndArray();
+        }
+    }
+
+    // EXPORTAR: ?format=ndjson|csv, linha a linha direto do cursor do banco, na thread da requisição (ver /stream)
+    @GetMapping("/export")
+    public void export(@RequestParam(defaultValue = "ndjson") String format,
+                       HttpServletResponse response) throws IOException {
+        ProductFormat productFormat = ProductFormat.from(format);
+        response.setContentType(productFormat.getMediaType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"products." + productFormat.getExtension() + "\"");
+        exportService.export(productFormat, response.getOutputStream());
     }
 
     // BUSCAR POR ID
     @GetMapping("/{id}")
     public ResponseEntity<Product> getById(@PathVariable UUID id) {
         Optional<Product> maybe = service.findById(id);
-        return maybe.map(ResponseEntity::ok)
+        return maybe.map(p -> ResponseEntity.ok().eTag(ProductCatalog.etagOf(p)).body(p))
                     .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    // BUSCAR VÁRIOS POR ID (corpo = lista de ids): encontrados e inexistentes numa resposta só
+    @PostMapping("/lookup")
+    public ProductLookupResult lookup(@RequestBody List<UUID> ids) {
+        if (ids.size() > maxLookupIds) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "A busca aceita no máximo " + maxLookupIds + " ids");
+        }
+        if (ids.contains(null)) {
+            throw new IllegalArgumentException("A lista de ids não pode conter null");
+        }
+        return service.lookup(ids);
+    }
+
     // CRIAR → geralmente exige token válido (exemplo abaixo com @PreAuthorize)
     @PostMapping
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")  // Exemplo: apenas ADMIN pode criar
     public ResponseEntity<Product> create(@RequestBody Product product) {
+        // Sempre um produto novo: com um id existente, o save viraria merge e a versão
+        // (e a ETag) seria a do cliente, não a gravada. Alterações vão pelo PUT
+        product.setId(null);
+        product.setVersion(null);
         Product saved = service.save(product);
         URI location = URI.create("/products/" + saved.getId());
         return ResponseEntity.created(location).body(saved);
     }
 
-    // ATUALIZAR
+    // ATUALIZAR: um único UPDATE; envie "version" no corpo para concorrência otimista (409 se desatualizada).
+    // A resposta traz a versão nova e a ETag correspondente, como o GET
     @PutMapping("/{id}")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     public ResponseEntity<Product> update(@PathVariable UUID id,
                                           @RequestBody Product product) {
-        Optional<Product> maybe = service.findById(id);
-        if (maybe.isEmpty()) {
-            return ResponseEntity.notFound().build();
-        }
-        product.setId(id);
-        Product updated = service.save(product);
-        return ResponseEntity.ok(updated);
+        return service.update(id, product)
+                      .map(p -> ResponseEntity.ok().eTag(ProductCatalog.etagOf(p)).body(p))
+                      .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // CRIAR EM LOTE
+    @PostMapping("/batch")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public BatchResult createBatch(@RequestBody List<Product> products) {
+        checkBatchSize(products.size());
+        return batchService.createAll(products);
+    }
+
+    // UPSERT EM LOTE: itens com id são atualizados, sem id são criados
+    @PutMapping("/batch")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public BatchResult upsertBatch(@RequestBody List<Product> products) {
+        checkBatchSize(products.size());
+        return batchService.upsertAll(products);
+    }
+
+    // DELETAR EM LOTE (corpo = lista de ids)
+    @PostMapping("/batch/delete")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public BatchResult deleteBatch(@RequestBody List<UUID> ids) {
+        checkBatchSize(ids.size());
+        return batchService.deleteAll(ids);
+    }
+
+    // ATUALIZAR PREÇOS (corpo = lista de {id, price}): 202 assim que entram na fila; a gravação
+    // é em lote, logo depois, e várias atualizações do mesmo produto até lá valem pela última.
+    // Ids inexistentes são descartados na gravação. 503 + Retry-After com a fila cheia
+    @PostMapping("/prices")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Void> updatePrices(@RequestBody List<PriceUpdate> updates) {
+        checkBatchSize(updates.size());
+        priceQueue.submit(updates);
+        return ResponseEntity.accepted().build();
+    }
+
+    // IMPORTAR (corpo CSV ou NDJSON, formato pelo Content-Type ou ?format=): linhas com id
+    // existente atualizam, as demais criam; linhas inválidas são contadas e não param a importação
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ImportResult importCatalog(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                      @RequestParam(required = false) String format,
+                                      InputStream body) throws IOException {
+        ProductFormat productFormat = ProductFormat.from(format != null ? format
+                : contentType.getType() + "/" + contentType.getSubtype());
+        return importService.importStream(body, productFormat);
     }
 
     // DELETAR
     @DeleteMapping("/{id}")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     public ResponseEntity<Void> delete(@PathVariable UUID id) {
-        Optional<Product> maybe = service.findById(id);
-        if (maybe.isEmpty()) {
+        if (!service.deleteById(id)) {
             return ResponseEntity.notFound().build();
         }
-        service.deleteById(id);
         return ResponseEntity.noContent().build();
     }
+
+    private void checkBatchSize(int size) {
+        if (size > maxBatchItems) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "O lote aceita no máximo " + maxBatchItems + " itens");
+        }
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleConflict(OptimisticLockingFailureException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(ProductNameIndex.NotReadyException.class)
+    public ResponseEntity<String> handleIndexNotReady(ProductNameIndex.NotReadyException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1").body(ex.getMessage());
+    }
+
+    @ExceptionHandler(PriceUpdateQueue.QueueFullException.class)
+    public ResponseEntity<String> handleQueueFull(PriceUpdateQueue.QueueFullException ex) {
+        long retryAfterSeconds = Math.max(1, (priceFlushIntervalMs + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                             .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                             .body(ex.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body(ex.getMessage());
+    }
 }
@@ -0,0 +1,117 @@
+package com.insper.product.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Ajustes dos pools Hikari (product.datasource.pool.*), aplicados por cima de
+ * spring.datasource.hikari.* na primária e em cada réplica.
+ *
+ * Com auto-size, o pool tem tamanho fixo de núcleos × (1 + dbLatency / queryCpu): enquanto
+ * uma conexão espera o banco, o núcleo atende outras requisições; mais conexões que isso
+ * só enfileiram no banco. Em Postgres, liga os statements preparados no servidor e o cache
+ * deles no driver, e a reescrita dos inserts em lote em um INSERT de várias linhas.
+ */
+public class PoolTuning {
+
+    private static final Logger logger = LoggerFactory.getLogger(PoolTuning.class);
+
+    private boolean autoSize;
+    private Duration dbLatency = Duration.ofMillis(2);
+    private Duration queryCpu = Duration.ofNanos(500_000);
+    private int minSize = 4;
+    private int maxSize = 64;
+    private final Postgres postgres = new Postgres();
+
+    public static PoolTuning from(Environment environment) {
+        return Binder.get(environment).bind("product.datasource.pool", Bindable.of(PoolTuning.class))
+                     .orElseGet(PoolTuning::new);
+    }
+
+    /**
+     * Tamanho do pool para {@code cores} núcleos, entre min-size e max-size.
+     */
+    public int poolSize(int cores) {
+        double perCore = 1 + (double) dbLatency.toNanos() / Math.max(1, queryCpu.toNanos());
+        int size = (int) Math.ceil(cores * perCore);
+        return Math.max(minSize, Math.min(maxSize, size));
+    }
+
+    /** Deve ser chamado antes da primeira conexão do pool. */
+    public void apply(HikariDataSource dataSource) {
+        if (autoSize) {
+            int size = poolSize(Runtime.getRuntime().availableProcessors());
+            dataSource.setMaximumPoolSize(size);
+            dataSource.setMinimumIdle(size);
+            logger.info("Pool {}: {} conexões (latência do banco {}, CPU por consulta {})",
+                    dataSource.getPoolName(), size, dbLatency, queryCpu);
+        }
+        String url = dataSource.getJdbcUrl();
+        if (url != null && url.startsWith("jdbc:postgresql:")) {
+            if (postgres.prepareThreshold != null) {
+                dataSource.addDataSourceProperty("prepareThreshold", postgres.prepareThreshold.toString());
+            }
+            if (postgres.statementCacheQueries != null) {
+                dataSource.addDataSourceProperty("preparedStatementCacheQueries", postgres.statementCacheQueries.toString());
+            }
+            if (postgres.statementCacheSizeMib != null) {
+                dataSource.addDataSourceProperty("preparedStatementCacheSizeMiB", postgres.statementCacheSizeMib.toString());
+            }
+            if (postgres.rewriteBatchedInserts) {
+                dataSource.addDataSourceProperty("reWriteBatchedInserts", "true");
+            }
+        }
+    }
+
+    public boolean isAutoSize() { return autoSize; }
+
+    public void setAutoSize(boolean autoSize) { this.autoSize = autoSize; }
+
+    public Duration getDbLatency() { return dbLatency; }
+
+    public void setDbLatency(Duration dbLatency) { this.dbLatency = dbLatency; }
+
+    public Duration getQueryCpu() { return queryCpu; }
+
+    public void setQueryCpu(Duration queryCpu) { this.queryCpu = queryCpu; }
+
+    public int getMinSize() { return minSize; }
+
+    public void setMinSize(int minSize) { this.minSize = minSize; }
+
+    public int getMaxSize() { return maxSize; }
+
+    public void setMaxSize(int maxSize) { this.maxSize = maxSize; }
+
+    public Postgres getPostgres() { return postgres; }
+
+    /** Opções do driver pgjdbc; sem valor, fica o padrão do driver. */
+    public static class Postgres {
+        private Integer prepareThreshold;
+        private Integer statementCacheQueries;
+        private Integer statementCacheSizeMib;
+        private boolean rewriteBatchedInserts;
+
+        public Integer getPrepareThreshold() { return prepareThreshold; }
+
+        public void setPrepareThreshold(Integer prepareThreshold) { this.prepareThreshold = prepareThreshold; }
+
+        public Integer getStatementCacheQueries() { return statementCacheQueries; }
+
+        public void setStatementCacheQueries(Integer statementCacheQueries) { this.statementCacheQueries = statementCacheQueries; }
+
+        public Integer getStatementCacheSizeMib() { return statementCacheSizeMib; }
+
+        public void setStatementCacheSizeMib(Integer statementCacheSizeMib) { this.statementCacheSizeMib = statementCacheSizeMib; }
+
+        public boolean isRewriteBatchedInserts() { return rewriteBatchedInserts; }
+
+        public void setRewriteBatchedInserts(boolean rewriteBatchedInserts) { this.rewriteBatchedInserts = rewriteBatchedInserts; }
+    }
+}
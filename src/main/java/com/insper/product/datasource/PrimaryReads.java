@@ -0,0 +1,35 @@
+package com.insper.product.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Leituras que alimentam os caches do ProductService (por id e o catálogo inteiro) vão
+ * para a primária, mesmo em transação read-only. Uma réplica atrasada devolveria a linha
+ * de antes de uma escrita já confirmada, e essa linha ficaria em cache até o TTL: a
+ * invalidação da escrita (no commit ou pelo poller do change feed) já teria passado.
+ *
+ * Sem réplicas configuradas não tem efeito. Vale para a thread atual, inclusive para
+ * transações abertas dentro de {@link #call}.
+ */
+public final class PrimaryReads {
+
+    private static final ThreadLocal<Boolean> ACTIVE = new ThreadLocal<>();
+
+    private PrimaryReads() {}
+
+    public static <T> T call(Supplier<T> action) {
+        if (Boolean.TRUE.equals(ACTIVE.get())) {
+            return action.get();
+        }
+        ACTIVE.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            ACTIVE.remove();
+        }
+    }
+
+    static boolean isActive() {
+        return Boolean.TRUE.equals(ACTIVE.get());
+    }
+}
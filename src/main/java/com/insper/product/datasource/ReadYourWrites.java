@@ -0,0 +1,84 @@
+package com.insper.product.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.insper.product.limit.LoadSheddingFilter;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+
+/**
+ * Leitura das próprias escritas: durante uma janela curta depois de um cliente escrever,
+ * as leituras dele vão para a primária, que já tem o dado mesmo que as réplicas ainda
+ * não tenham aplicado a replicação. Dentro da própria requisição que escreveu, as
+ * leituras seguintes também ficam na primária.
+ *
+ * O cliente é identificado como no LoadSheddingFilter (sujeito do JWT, ou IP). Fora de
+ * uma requisição (poller do change feed, tarefas agendadas) não há aderência.
+ */
+public class ReadYourWrites implements AsyncHandlerInterceptor {
+
+    private final Cache<String, Boolean> recentWriters;
+
+    private final ThreadLocal<State> current = new ThreadLocal<>();
+
+    public ReadYourWrites(Duration window, long maxClients) {
+        this.recentWriters = Caffeine.newBuilder()
+                                     .maximumSize(maxClients)
+                                     .expireAfterWrite(window)
+                                     .build();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String client = LoadSheddingFilter.clientKey(request);
+        current.set(new State(client, recentWriters.getIfPresent(client) != null));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        finish();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        finish();
+    }
+
+    boolean isSticky() {
+        State state = current.get();
+        return state != null && state.sticky;
+    }
+
+    /** Chamado ao abrir uma conexão na primária para uma transação de escrita. */
+    void markWrite() {
+        State state = current.get();
+        if (state != null) {
+            state.sticky = true;
+            state.wrote = true;
+        }
+    }
+
+    // A janela conta a partir do fim da requisição, quando a escrita já foi confirmada
+    private void finish() {
+        State state = current.get();
+        current.remove();
+        if (state != null && state.wrote) {
+            recentWriters.put(state.client, Boolean.TRUE);
+        }
+    }
+
+    private static final class State {
+        final String client;
+        boolean sticky;
+        boolean wrote;
+
+        State(String client, boolean sticky) {
+            this.client = client;
+            this.sticky = sticky;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.insper.product.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Escolhe a primária ou uma réplica a cada conexão física: transações read-only vão para
+ * uma réplica (salvo se o cliente acabou de escrever, ver ReadYourWrites, ou se a leitura
+ * vai para um cache, ver PrimaryReads); o resto, inclusive acesso sem transação, vai para
+ * a primária.
+ *
+ * Precisa ficar atrás de um LazyConnectionDataSourceProxy: o gerenciador de transações
+ * pede a conexão antes de publicar o flag read-only, e o proxy adia a escolha até a
+ * primeira instrução.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private final ReplicaSet replicaSet;
+    private final ReadYourWrites readYourWrites;
+
+    public ReplicaRoutingDataSource(ReplicaSet replicaSet, ReadYourWrites readYourWrites) {
+        this.replicaSet = replicaSet;
+        this.readYourWrites = readYourWrites;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, replicaSet.getPrimary());
+        for (ReplicaSet.Replica replica : replicaSet.getReplicas()) {
+            targets.put(replica.getName(), replica.getDataSource());
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(replicaSet.getPrimary());
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                readYourWrites.markWrite();
+            }
+            return PRIMARY;
+        }
+        if (readYourWrites.isSticky() || PrimaryReads.isActive()) {
+            return PRIMARY;
+        }
+        String replica = replicaSet.select();
+        return replica == null ? PRIMARY : replica;
+    }
+}
@@ -0,0 +1,157 @@
+package com.insper.product.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pools da primária e das réplicas de leitura, e a escolha da réplica de cada leitura:
+ * round-robin, ou a de menor latência medida pelas sondagens periódicas. Uma réplica que
+ * falha na sondagem sai da rotação até responder de novo; sem nenhuma disponível, as
+ * leituras vão para a primária.
+ */
+public class ReplicaSet implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaSet.class);
+
+    private static final int PROBE_TIMEOUT_SECONDS = 1;
+
+    // Peso da sondagem mais recente na média móvel da latência
+    private static final double ALPHA = 0.3;
+
+    public enum Selection {
+        ROUND_ROBIN,
+        LEAST_LATENCY;
+
+        /** Aceita "round-robin" ou "least-latency" (sem diferenciar maiúsculas). */
+        public static Selection from(String value) {
+            try {
+                return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("product.datasource.replica-selection inválido: " + value
+                        + " (use round-robin ou least-latency)");
+            }
+        }
+    }
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Selection selection;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaSet(DataSource primary, Map<String, DataSource> replicas, Selection selection) {
+        this.primary = primary;
+        this.selection = selection;
+        List<Replica> list = new ArrayList<>();
+        replicas.forEach((name, dataSource) -> list.add(new Replica(name, dataSource)));
+        this.replicas = Collections.unmodifiableList(list);
+    }
+
+    public DataSource getPrimary() { return primary; }
+
+    public List<Replica> getReplicas() { return replicas; }
+
+    /**
+     * Nome da réplica para a próxima leitura, ou null se nenhuma estiver disponível.
+     */
+    public String select() {
+        if (selection == Selection.LEAST_LATENCY) {
+            Replica best = null;
+            for (Replica replica : replicas) {
+                if (replica.healthy && (best == null || replica.latencyNanos < best.latencyNanos)) {
+                    best = replica;
+                }
+            }
+            return best == null ? null : best.name;
+        }
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica.name;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Mede cada réplica com uma conexão do pool e um Connection.isValid: a latência
+     * inclui a espera pelo pool, então uma réplica saturada também aparece como lenta.
+     */
+    @Scheduled(fixedDelayString = "${product.datasource.replica-probe-interval-ms:5000}")
+    public void probe() {
+        for (Replica replica : replicas) {
+            long start = System.nanoTime();
+            boolean valid;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                valid = connection.isValid(PROBE_TIMEOUT_SECONDS);
+            } catch (SQLException e) {
+                logger.debug("Sondagem da réplica {} falhou", replica.name, e);
+                valid = false;
+            }
+            replica.update(valid, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            closeIfPossible(replica.dataSource);
+        }
+        closeIfPossible(primary);
+    }
+
+    private static void closeIfPossible(DataSource dataSource) throws Exception {
+        if (dataSource instanceof AutoCloseable) {
+            ((AutoCloseable) dataSource).close();
+        }
+    }
+
+    public static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+        private volatile long latencyNanos;
+        private boolean sampled;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        public String getName() { return name; }
+
+        public DataSource getDataSource() { return dataSource; }
+
+        public boolean isHealthy() { return healthy; }
+
+        public double getLatencyMillis() { return latencyNanos / 1_000_000.0; }
+
+        // Só a thread das sondagens escreve aqui
+        void update(boolean valid, long elapsedNanos) {
+            if (valid != healthy) {
+                if (valid) {
+                    logger.info("Réplica {} voltou para a rotação", name);
+                } else {
+                    logger.warn("Réplica {} fora da rotação: sondagem falhou", name);
+                }
+                healthy = valid;
+            }
+            if (valid) {
+                latencyNanos = sampled ? (long) (ALPHA * elapsedNanos + (1 - ALPHA) * latencyNanos) : elapsedNanos;
+                sampled = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.insper.product.limit;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limite adaptativo de requisições simultâneas (AIMD), guiado pela latência do banco.
+ *
+ * Cada comando JDBC alimenta uma média móvel exponencial da latência. No máximo uma
+ * vez por janela o limite é ajustado: se a média passou do alvo, ele cai 10%
+ * (decréscimo multiplicativo); se não, e o limite está de fato em uso, sobe 1
+ * (acréscimo aditivo). Com o banco lento, o serviço passa a recusar o excedente
+ * rápido (503) em vez de enfileirar todo mundo e estourar a latência de cauda.
+ */
+public class ConcurrencyLimiter {
+
+    private static final double EWMA_WEIGHT = 0.1;
+    private static final double BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetNanos;
+    private final long windowNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong nextAdjustment = new AtomicLong(System.nanoTime());
+    private volatile int limit;
+
+    // Corridas entre threads só perdem amostras; para uma média móvel não importa
+    private volatile double latencyNanos;
+
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, Duration latencyTarget, Duration window) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.targetNanos = latencyTarget.toNanos();
+        this.windowNanos = window.toNanos();
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Amostra de latência de um comando JDBC.
+     */
+    public void onLatency(long nanos) {
+        onLatency(nanos, System.nanoTime());
+    }
+
+    void onLatency(long nanos, long now) {
+        double average = latencyNanos;
+        latencyNanos = average == 0 ? nanos : average + EWMA_WEIGHT * (nanos - average);
+
+        long due = nextAdjustment.get();
+        if (now - due >= 0 && nextAdjustment.compareAndSet(due, now + windowNanos)) {
+            adjust();
+        }
+    }
+
+    private void adjust() {
+        int current = limit;
+        if (latencyNanos > targetNanos) {
+            limit = Math.max(minLimit, (int) (current * BACKOFF));
+        } else if (inFlight.get() * 2 >= current) {
+            limit = Math.min(maxLimit, current + 1);
+        }
+    }
+
+    public int getLimit() { return limit; }
+
+    public int getInFlight() { return inFlight.get(); }
+
+    public double getLatencyMillis() { return latencyNanos / 1_000_000.0; }
+}
@@ -0,0 +1,104 @@
+package com.insper.product.limit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Proteção contra sobrecarga, na cadeia do Spring Security logo depois do filtro JWT:
+ * <ol>
+ *   <li>limite de taxa por cliente (sujeito do JWT, ou IP sem token): 429 + Retry-After;</li>
+ *   <li>limite adaptativo de concorrência: 503 + Retry-After quando o banco está lento.</li>
+ * </ol>
+ * O actuator fica de fora, para que health checks e scraping não sejam recusados.
+ */
+public class LoadSheddingFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final Counter rateLimited;
+    private final Counter shed;
+
+    public LoadSheddingFilter(RateLimiter rateLimiter, ConcurrencyLimiter concurrencyLimiter, MeterRegistry registry) {
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.rateLimited = Counter.builder("http.limiter.rejected")
+                                  .description("Requisições recusadas pelos limitadores")
+                                  .tag("reason", "rate")
+                                  .register(registry);
+        this.shed = Counter.builder("http.limiter.rejected")
+                           .description("Requisições recusadas pelos limitadores")
+                           .tag("reason", "concurrency")
+                           .register(registry);
+        Gauge.builder("http.limiter.concurrency.limit", concurrencyLimiter, ConcurrencyLimiter::getLimit)
+             .register(registry);
+        Gauge.builder("http.limiter.concurrency.in.flight", concurrencyLimiter, ConcurrencyLimiter::getInFlight)
+             .register(registry);
+        Gauge.builder("http.limiter.db.latency", concurrencyLimiter, ConcurrencyLimiter::getLatencyMillis)
+             .description("Média móvel da latência dos comandos JDBC")
+             .baseUnit("milliseconds")
+             .register(registry);
+        Gauge.builder("http.limiter.clients", rateLimiter, RateLimiter::estimatedKeys)
+             .register(registry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + "/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long waitNanos = rateLimiter.tryAcquire(clientKey(request));
+        if (waitNanos > 0) {
+            rateLimited.increment();
+            reject(response, 429, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999));
+            return;
+        }
+
+        if (!concurrencyLimiter.tryAcquire()) {
+            shed.increment();
+            reject(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, 1);
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            // Em respostas assíncronas (SSE, streaming) libera quando o handler retorna:
+            // uma conexão longa não prende uma vaga que o banco não está usando
+            concurrencyLimiter.release();
+        }
+    }
+
+    /**
+     * Identificação do cliente: o sujeito do JWT, ou o IP em requisições sem token.
+     */
+    public static String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "sub:" + authentication.getName();
+        }
+        // Atrás de proxy, o IP real vem de server.forward-headers-strategy (não de X-Forwarded-For direto)
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    // Sem sendError: a recusa não passa pelo /error, para custar o mínimo justamente na sobrecarga
+    private static void reject(HttpServletResponse response, int status, long retryAfterSeconds) {
+        response.setStatus(status);
+        response.setHeader("Retry-After", Long.toString(retryAfterSeconds));
+        response.setContentLength(0);
+    }
+}
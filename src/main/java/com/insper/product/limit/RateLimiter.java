@@ -0,0 +1,59 @@
+package com.insper.product.limit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket por cliente, no formato GCRA: cada chave guarda só o "instante teórico
+ * de chegada" (TAT) num AtomicLong, atualizado por CAS, sem trava. Permite rajadas de
+ * até {@code burst} requisições e, em regime, {@code permitsPerSecond}.
+ *
+ * As chaves ficam num cache Caffeine com limite de tamanho e expiração por inatividade,
+ * para que clientes (ou IPs) que somem não acumulem memória.
+ */
+public class RateLimiter {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final Cache<String, AtomicLong> buckets;
+
+    public RateLimiter(double permitsPerSecond, int burst, long maxKeys) {
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / permitsPerSecond));
+        this.burstNanos = intervalNanos * Math.max(1, burst);
+        this.buckets = Caffeine.newBuilder()
+                               .maximumSize(maxKeys)
+                               // Depois de burstNanos parado o bucket está cheio de novo: pode sair do cache
+                               .expireAfterAccess(Duration.ofNanos(Math.max(burstNanos, 1_000_000_000L)))
+                               .build();
+    }
+
+    /**
+     * @return 0 se a requisição pode seguir, ou quantos nanos faltam para a próxima permissão
+     */
+    public long tryAcquire(String key) {
+        return tryAcquire(key, System.nanoTime());
+    }
+
+    long tryAcquire(String key, long now) {
+        AtomicLong tat = buckets.get(key, k -> new AtomicLong(now));
+        while (true) {
+            long current = tat.get();
+            long start = current - now < 0 ? now : current;
+            long next = start + intervalNanos;
+            long ahead = next - now;
+            if (ahead > burstNanos) {
+                return ahead - burstNanos;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public long estimatedKeys() {
+        return buckets.estimatedSize();
+    }
+}
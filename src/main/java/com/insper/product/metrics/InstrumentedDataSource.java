@@ -0,0 +1,114 @@
+package com.insper.product.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Supplier;
+
+/**
+ * DataSource que cronometra cada execução de Statement/PreparedStatement.
+ * Usa proxies dinâmicos só nas chamadas execute*; o resto é repassado direto.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+    private final Supplier<QueryMetrics> metrics;
+
+    /**
+     * @param metrics resolvido só na primeira conexão, para não antecipar a criação
+     *                do MeterRegistry durante o pós-processamento do DataSource
+     */
+    public InstrumentedDataSource(DataSource target, Supplier<QueryMetrics> metrics) {
+        super(target);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, new ConnectionHandler(connection));
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = invokeTarget(target, method, args);
+            if (result instanceof Statement) {
+                Class<?> type = result instanceof CallableStatement ? CallableStatement.class
+                        : result instanceof PreparedStatement ? PreparedStatement.class
+                        : Statement.class;
+                return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                        new StatementHandler((Statement) result, proxy));
+            }
+            return result;
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final Object connectionProxy;
+
+        StatementHandler(Statement target, Object connectionProxy) {
+            this.target = target;
+            this.connectionProxy = connectionProxy;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("getConnection".equals(name)) {
+                return connectionProxy;
+            }
+            if (!name.startsWith("execute")) {
+                return invokeTarget(target, method, args);
+            }
+            long start = System.nanoTime();
+            try {
+                return invokeTarget(target, method, args);
+            } finally {
+                metrics.get().record(operation(name), System.nanoTime() - start);
+            }
+        }
+
+        private String operation(String method) {
+            if (method.equals("executeQuery")) {
+                return "query";
+            }
+            if (method.startsWith("executeBatch") || method.startsWith("executeLargeBatch")) {
+                return "batch";
+            }
+            return method.equals("execute") ? "query" : "update";
+        }
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.insper.product.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * Tempo e quantidade de comandos JDBC. Cada execução vai para o timer global
+ * {@code db.query} e, se houver uma requisição HTTP em andamento na thread, também
+ * para o acumulado daquela requisição (lido pelo {@link RequestMetricsFilter}).
+ */
+public class QueryMetrics {
+
+    private static final ThreadLocal<RequestStats> CURRENT = new ThreadLocal<>();
+
+    private final Timer queryTimer;
+    private final Timer updateTimer;
+    private final Timer batchTimer;
+
+    private final List<LongConsumer> listeners = new CopyOnWriteArrayList<>();
+
+    public QueryMetrics(MeterRegistry registry) {
+        this.queryTimer = timer(registry, "query");
+        this.updateTimer = timer(registry, "update");
+        this.batchTimer = timer(registry, "batch");
+    }
+
+    /**
+     * Recebe a duração (em nanos) de cada comando JDBC, na thread que o executou.
+     */
+    public void addListener(LongConsumer listener) {
+        listeners.add(listener);
+    }
+
+    void record(String operation, long nanos) {
+        Timer timer;
+        switch (operation) {
+            case "query":
+                timer = queryTimer;
+                break;
+            case "batch":
+                timer = batchTimer;
+                break;
+            default:
+                timer = updateTimer;
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+        for (LongConsumer listener : listeners) {
+            listener.accept(nanos);
+        }
+
+        RequestStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.queries++;
+            stats.nanos += nanos;
+        }
+    }
+
+    static RequestStats beginRequest() {
+        RequestStats stats = new RequestStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void endRequest() {
+        CURRENT.remove();
+    }
+
+    private static Timer timer(MeterRegistry registry, String operation) {
+        return Timer.builder("db.query")
+                    .description("Tempo de execução de comandos JDBC")
+                    .tag("operation", operation)
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .publishPercentileHistogram()
+                    .register(registry);
+    }
+
+    static final class RequestStats {
+        int queries;
+        long nanos;
+    }
+}
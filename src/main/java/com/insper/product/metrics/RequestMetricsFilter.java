@@ -0,0 +1,74 @@
+package com.insper.product.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Acumula os comandos JDBC de cada requisição e publica, por endpoint, quantos
+ * foram executados ({@code http.db.queries}) e quanto tempo levaram ({@code http.db.time}).
+ * A latência total por endpoint já vem do {@code http.server.requests} do Spring Boot.
+ */
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry registry;
+
+    // Medidores por "método uri", para não reconstruir o id do medidor a cada requisição
+    private final Map<String, DistributionSummary> queryCounts = new ConcurrentHashMap<>();
+    private final Map<String, Timer> queryTimes = new ConcurrentHashMap<>();
+
+    public RequestMetricsFilter(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryMetrics.RequestStats stats = QueryMetrics.beginRequest();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryMetrics.endRequest();
+            String method = request.getMethod();
+            String uri = uri(request);
+            String key = method + ' ' + uri;
+            queryCounts.computeIfAbsent(key, k ->
+                    DistributionSummary.builder("http.db.queries")
+                                       .description("Comandos JDBC por requisição")
+                                       .tag("method", method)
+                                       .tag("uri", uri)
+                                       .publishPercentiles(0.5, 0.99)
+                                       .register(registry))
+                       .record(stats.queries);
+            queryTimes.computeIfAbsent(key, k ->
+                    Timer.builder("http.db.time")
+                         .description("Tempo em JDBC por requisição")
+                         .tag("method", method)
+                         .tag("uri", uri)
+                         .publishPercentiles(0.5, 0.99, 0.999)
+                         .register(registry))
+                      .record(stats.nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Usa o padrão da rota (ex.: /products/{id}) para não criar uma série por id.
+     */
+    static String uri(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern == null ? "UNKNOWN" : pattern.toString();
+    }
+}
@@ -0,0 +1,42 @@
+package com.insper.product.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers {@code http.serialization} por endpoint, compartilhados pelos conversores de resposta.
+ */
+public class SerializationTimers {
+
+    private final MeterRegistry registry;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public SerializationTimers(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void record(long startNanos) {
+        timers.computeIfAbsent(currentUri(), uri ->
+                Timer.builder("http.serialization")
+                     .description("Tempo de serialização da resposta")
+                     .tag("uri", uri)
+                     .publishPercentiles(0.5, 0.99, 0.999)
+                     .register(registry))
+              .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static String currentUri() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        Object pattern = attributes == null ? null
+                : attributes.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        return pattern == null ? "UNKNOWN" : pattern.toString();
+    }
+}
@@ -0,0 +1,34 @@
+package com.insper.product.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Conversor JSON padrão que mede o tempo de serialização das respostas
+ * ({@code http.serialization}), separando-o do tempo de banco e de autenticação.
+ */
+public class TimedJackson2HttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private final SerializationTimers timers;
+
+    public TimedJackson2HttpMessageConverter(ObjectMapper objectMapper, SerializationTimers timers) {
+        super(objectMapper);
+        this.timers = timers;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        long start = System.nanoTime();
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            timers.record(start);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.insper.product.model;
+
+import java.util.UUID;
+
+/**
+ * Resultado de um item de uma operação em lote. {@code index} é a posição do item
+ * na requisição; {@code error} só é preenchido quando o item falhou.
+ */
+public class BatchItemResult {
+
+    public enum Status { CREATED, UPDATED, DELETED, NOT_FOUND, INVALID, FAILED }
+
+    private final int index;
+    private final UUID id;
+    private final Status status;
+    private final String error;
+
+    public BatchItemResult(int index, UUID id, Status status, String error) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.error = error;
+    }
+
+    public static BatchItemResult ok(int index, UUID id, Status status) {
+        return new BatchItemResult(index, id, status, null);
+    }
+
+    public int getIndex() { return index; }
+
+    public UUID getId() { return id; }
+
+    public Status getStatus() { return status; }
+
+    public String getError() { return error; }
+
+    public boolean isSuccess() {
+        return status == Status.CREATED || status == Status.UPDATED || status == Status.DELETED;
+    }
+}
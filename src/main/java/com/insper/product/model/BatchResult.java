@@ -0,0 +1,34 @@
+package com.insper.product.model;
+
+import java.util.List;
+
+/**
+ * Resumo de uma operação em lote, com o status individual de cada item.
+ */
+public class BatchResult {
+    private final int succeeded;
+    private final int failed;
+    private final long elapsedMillis;
+    private final List<BatchItemResult> items;
+
+    public BatchResult(List<BatchItemResult> items, long elapsedMillis) {
+        int ok = 0;
+        for (BatchItemResult item : items) {
+            if (item.isSuccess()) {
+                ok++;
+            }
+        }
+        this.succeeded = ok;
+        this.failed = items.size() - ok;
+        this.elapsedMillis = elapsedMillis;
+        this.items = items;
+    }
+
+    public int getSucceeded() { return succeeded; }
+
+    public int getFailed() { return failed; }
+
+    public long getElapsedMillis() { return elapsedMillis; }
+
+    public List<BatchItemResult> getItems() { return items; }
+}
@@ -0,0 +1,38 @@
+package com.insper.product.model;
+
+import java.util.List;
+
+/**
+ * Resumo de uma importação (POST /products/import ou --import=). Linhas com erro não
+ * interrompem a importação; {@code errors} traz só as primeiras, com a posição em bytes
+ * da linha no arquivo.
+ */
+public class ImportResult {
+    private final long created;
+    private final long updated;
+    private final long failed;
+    private final long bytes;
+    private final long elapsedMillis;
+    private final List<String> errors;
+
+    public ImportResult(long created, long updated, long failed, long bytes, long elapsedMillis, List<String> errors) {
+        this.created = created;
+        this.updated = updated;
+        this.failed = failed;
+        this.bytes = bytes;
+        this.elapsedMillis = elapsedMillis;
+        this.errors = errors;
+    }
+
+    public long getCreated() { return created; }
+
+    public long getUpdated() { return updated; }
+
+    public long getFailed() { return failed; }
+
+    public long getBytes() { return bytes; }
+
+    public long getElapsedMillis() { return elapsedMillis; }
+
+    public List<String> getErrors() { return errors; }
+}
@@ -0,0 +1,25 @@
+package com.insper.product.model;
+
+import java.util.UUID;
+
+/**
+ * Item de POST /products/prices: o novo preço de um produto. Vários itens para o mesmo
+ * id até a próxima gravação valem pelo último.
+ */
+public class PriceUpdate {
+    private UUID id;
+    private Double price;
+
+    public PriceUpdate() {}
+
+    public PriceUpdate(UUID id, Double price) {
+        this.id = id;
+        this.price = price;
+    }
+
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+
+    public Double getPrice() { return price; }
+    public void setPrice(Double price) { this.price = price; }
+}
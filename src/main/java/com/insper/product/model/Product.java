@@ -1,11 +1,27 @@
 package com.insper.product.model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import java.util.UUID;
 
 @Entity
-@Table(name = "product")
+// Índices da busca (GET /products/search): ordenação por nome, faixa de preço e unidade +
+// faixa de preço. O prefixo sem diferenciar maiúsculas (lower(name) LIKE) e a paginação
+// keyset usam índices por expressão, que só existem nas migrações do Postgres
+@Table(name = "product", indexes = {
+    @Index(name = "idx_product_name", columnList = "name"),
+    @Index(name = "idx_product_price", columnList = "price"),
+    @Index(name = "idx_product_unit_price", columnList = "unit, price")
+})
+// Cache de segundo nível: só tem efeito com ele ligado (perfil high-throughput, ver PersistenceTuningConfig)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Product.CACHE_REGION)
 public class Product {
+
+    public static final String CACHE_REGION = "product";
+
     @Id
     @GeneratedValue
     private UUID id;
@@ -14,6 +30,10 @@ public class Product {
     private Double price;
     private String unit;
 
+    // Versão para concorrência otimista: incrementada a cada escrita (ver ProductRepository).
+    // Não usa @Version porque linhas antigas têm a coluna nula.
+    private Long version;
+
     // Construtores
     public Product() {}
 
@@ -35,4 +55,12 @@ public class Product {
 
     public String getUnit() { return unit; }
     public void setUnit(String unit) { this.unit = unit; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    @PrePersist
+    void initVersion() {
+        version = 0L;
+    }
 }
@@ -0,0 +1,204 @@
+package com.insper.product.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * O catálogo completo junto com a sua ETag, em colunas de primitivos: um long[] por
+ * metade do UUID, um double[] de preços (o valor exato do banco, como em GET /products/{id})
+ * e um long[] de versões, em vez de uma entidade (com UUID, Double e Long) por produto. O catálogo fica em cache e é escrito direto das colunas por
+ * ProductCatalogHttpMessageConverter, sem passar por entidades nem por reflexão.
+ *
+ * A ETag é calculada uma única vez, quando o catálogo é carregado, a partir dos pares
+ * (id, versão) dos produtos: qualquer escrita muda a versão de um produto ou o conjunto de ids.
+ *
+ * O feedSeq é um seq do change feed cujos eventos (e os anteriores) o catálogo já reflete:
+ * quem guarda uma cópia segue o feed a partir dele. -1 se desconhecido.
+ */
+public class ProductCatalog {
+
+    // Marca de valor nulo nas colunas de primitivos
+    public static final long NULL = Long.MIN_VALUE;
+
+    // Preço nulo na coluna de preços. NaN não é um preço possível: o JSON não o representa
+    public static final double NULL_PRICE = Double.NaN;
+
+    private final int size;
+    private final long[] idHigh;
+    private final long[] idLow;
+    private final String[] names;
+    private final double[] prices;
+    private final String[] units;
+    private final long[] versions;
+    private final String etag;
+    private final long feedSeq;
+
+    public ProductCatalog(List<Product> products) {
+        this(fromEntities(products));
+    }
+
+    private ProductCatalog(Builder builder) {
+        size = builder.size;
+        idHigh = Arrays.copyOf(builder.idHigh, size);
+        idLow = Arrays.copyOf(builder.idLow, size);
+        names = Arrays.copyOf(builder.names, size);
+        prices = Arrays.copyOf(builder.prices, size);
+        units = Arrays.copyOf(builder.units, size);
+        versions = Arrays.copyOf(builder.versions, size);
+        etag = computeEtag();
+        feedSeq = builder.feedSeq;
+    }
+
+    public static Builder builder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    public int size() { return size; }
+
+    public long idHigh(int i) { return idHigh[i]; }
+
+    public long idLow(int i) { return idLow[i]; }
+
+    public String name(int i) { return names[i]; }
+
+    /** Preço, ou {@link #NULL_PRICE} (teste com {@link #hasPrice}). */
+    public double price(int i) { return prices[i]; }
+
+    public boolean hasPrice(int i) { return !Double.isNaN(prices[i]); }
+
+    public String unit(int i) { return units[i]; }
+
+    /** Versão, ou {@link #NULL}. */
+    public long version(int i) { return versions[i]; }
+
+    public String getEtag() { return etag; }
+
+    public long getFeedSeq() { return feedSeq; }
+
+    /**
+     * Materializa o catálogo como entidades (desanexadas). Para a resposta de
+     * GET /products use as colunas; isto aloca um objeto por produto.
+     */
+    public List<Product> getProducts() {
+        List<Product> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Product product = new Product(names[i], fromPriceColumn(prices[i]), units[i]);
+            product.setId(new UUID(idHigh[i], idLow[i]));
+            product.setVersion(versions[i] == NULL ? null : versions[i]);
+            products.add(product);
+        }
+        return products;
+    }
+
+    /**
+     * ETag forte de um produto: a versão muda a cada escrita (ver ProductRepository).
+     */
+    public static String etagOf(Product product) {
+        return "\"" + (product.getVersion() == null ? 0 : product.getVersion()) + "\"";
+    }
+
+    /** Valor da coluna de preços: o próprio preço, sem arredondar, ou {@link #NULL_PRICE}. */
+    public static double toPriceColumn(Double price) {
+        return price == null ? NULL_PRICE : price;
+    }
+
+    public static Double fromPriceColumn(double price) {
+        return Double.isNaN(price) ? null : price;
+    }
+
+    private static Builder fromEntities(List<Product> products) {
+        Builder builder = new Builder(products.size());
+        for (Product product : products) {
+            UUID id = product.getId();
+            builder.add(id == null ? 0 : id.getMostSignificantBits(),
+                        id == null ? 0 : id.getLeastSignificantBits(),
+                        product.getName(),
+                        toPriceColumn(product.getPrice()),
+                        product.getUnit(),
+                        product.getVersion() == null ? NULL : product.getVersion());
+        }
+        return builder;
+    }
+
+    private String computeEtag() {
+        // Soma de hashes misturados: independe da ordem em que o banco devolveu as linhas
+        long hash = 0;
+        for (int i = 0; i < size; i++) {
+            long h = idHigh[i] * 31 + idLow[i];
+            h = h * 31 + (versions[i] == NULL ? 0 : versions[i]);
+            hash += mix(h);
+        }
+        return "\"c" + size + "-" + Long.toHexString(hash) + "\"";
+    }
+
+    // Finalizador do SplitMix64: espalha bem bits próximos antes da soma
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Acumula linhas em colunas que crescem por duplicação.
+     */
+    public static class Builder {
+        private int size;
+        private long[] idHigh;
+        private long[] idLow;
+        private String[] names;
+        private double[] prices;
+        private String[] units;
+        private long[] versions;
+        private long feedSeq = -1;
+
+        // Poucas unidades distintas ("un", "kg"...): uma única String para cada
+        private final Map<String, String> unitPool = new HashMap<>();
+
+        private Builder(int expectedSize) {
+            int capacity = Math.max(16, expectedSize);
+            idHigh = new long[capacity];
+            idLow = new long[capacity];
+            names = new String[capacity];
+            prices = new double[capacity];
+            units = new String[capacity];
+            versions = new long[capacity];
+        }
+
+        public Builder add(long high, long low, String name, double price, String unit, long version) {
+            if (size == idHigh.length) {
+                grow();
+            }
+            idHigh[size] = high;
+            idLow[size] = low;
+            names[size] = name;
+            prices[size] = price;
+            units[size] = unit == null ? null : unitPool.computeIfAbsent(unit, u -> u);
+            versions[size] = version;
+            size++;
+            return this;
+        }
+
+        public Builder feedSeq(long feedSeq) {
+            this.feedSeq = feedSeq;
+            return this;
+        }
+
+        public ProductCatalog build() {
+            return new ProductCatalog(this);
+        }
+
+        private void grow() {
+            int capacity = idHigh.length * 2;
+            idHigh = Arrays.copyOf(idHigh, capacity);
+            idLow = Arrays.copyOf(idLow, capacity);
+            names = Arrays.copyOf(names, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            units = Arrays.copyOf(units, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.insper.product.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import javax.persistence.*;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Evento do change feed (outbox transacional): gravado na mesma transação da
+ * escrita do produto. {@code seq} é atribuído no commit, em ordem de commit,
+ * então um consumidor que leu até N nunca verá depois um evento com seq menor.
+ */
+@Entity
+@Table(name = "product_change", indexes = {
+    @Index(name = "idx_product_change_created_at", columnList = "created_at")
+})
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductChange {
+
+    public enum Type { UPSERT, DELETE }
+
+    @Id
+    private Long seq;
+
+    @Column(name = "product_id", nullable = false)
+    private UUID productId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Type type;
+
+    // Estado do produto após a escrita (nulos em DELETE)
+    private String name;
+    private Double price;
+    private String unit;
+    private Long version;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public ProductChange() {}
+
+    public static ProductChange upsert(Product product) {
+        ProductChange change = new ProductChange();
+        change.productId = product.getId();
+        change.type = Type.UPSERT;
+        change.name = product.getName();
+        change.price = product.getPrice();
+        change.unit = product.getUnit();
+        change.version = product.getVersion();
+        return change;
+    }
+
+    public static ProductChange delete(UUID productId) {
+        ProductChange change = new ProductChange();
+        change.productId = productId;
+        change.type = Type.DELETE;
+        return change;
+    }
+
+    public Long getSeq() { return seq; }
+    public void setSeq(Long seq) { this.seq = seq; }
+
+    public UUID getProductId() { return productId; }
+
+    public Type getType() { return type; }
+
+    public String getName() { return name; }
+
+    public Double getPrice() { return price; }
+
+    public String getUnit() { return unit; }
+
+    public Long getVersion() { return version; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+}
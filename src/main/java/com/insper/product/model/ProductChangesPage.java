@@ -0,0 +1,25 @@
+package com.insper.product.model;
+
+import java.util.List;
+
+/**
+ * Resposta de GET /products/changes. {@code nextSince} é o valor a enviar em
+ * {@code since} na próxima consulta (igual ao {@code since} recebido se não houve mudanças).
+ */
+public class ProductChangesPage {
+    private final List<ProductChange> changes;
+    private final long nextSince;
+    private final boolean hasMore;
+
+    public ProductChangesPage(List<ProductChange> changes, long nextSince, boolean hasMore) {
+        this.changes = changes;
+        this.nextSince = nextSince;
+        this.hasMore = hasMore;
+    }
+
+    public List<ProductChange> getChanges() { return changes; }
+
+    public long getNextSince() { return nextSince; }
+
+    public boolean isHasMore() { return hasMore; }
+}
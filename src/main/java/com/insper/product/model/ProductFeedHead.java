@@ -0,0 +1,33 @@
+package com.insper.product.model;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Linha única com o último seq atribuído no change feed. É travada (SELECT ... FOR
+ * UPDATE) só no instante do commit, o que serializa apenas a numeração dos eventos.
+ */
+@Entity
+@Table(name = "product_feed_head")
+public class ProductFeedHead {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    private long seq;
+
+    public ProductFeedHead() {}
+
+    public ProductFeedHead(Integer id, long seq) {
+        this.id = id;
+        this.seq = seq;
+    }
+
+    public Integer getId() { return id; }
+
+    public long getSeq() { return seq; }
+    public void setSeq(long seq) { this.seq = seq; }
+}
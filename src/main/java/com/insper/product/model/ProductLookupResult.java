@@ -0,0 +1,22 @@
+package com.insper.product.model;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Resultado de POST /products/lookup: os produtos encontrados e os ids inexistentes,
+ * ambos na ordem em que os ids foram pedidos (sem repetições).
+ */
+public class ProductLookupResult {
+    private final List<Product> found;
+    private final List<UUID> missing;
+
+    public ProductLookupResult(List<Product> found, List<UUID> missing) {
+        this.found = found;
+        this.missing = missing;
+    }
+
+    public List<Product> getFound() { return found; }
+
+    public List<UUID> getMissing() { return missing; }
+}
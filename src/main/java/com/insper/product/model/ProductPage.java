@@ -0,0 +1,21 @@
+package com.insper.product.model;
+
+import java.util.List;
+
+/**
+ * Uma página de produtos. {@code nextCursor} é nulo quando não há mais páginas;
+ * caso contrário deve ser enviado no parâmetro {@code after} para buscar a próxima.
+ */
+public class ProductPage {
+    private final List<Product> items;
+    private final String nextCursor;
+
+    public ProductPage(List<Product> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Product> getItems() { return items; }
+
+    public String getNextCursor() { return nextCursor; }
+}
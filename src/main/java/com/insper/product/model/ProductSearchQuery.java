@@ -0,0 +1,63 @@
+package com.insper.product.model;
+
+import java.util.Locale;
+
+/**
+ * Filtros da busca de produtos. Campos nulos não filtram.
+ */
+public class ProductSearchQuery {
+
+    /**
+     * PREFIX usa o índice de lower(name) no Postgres (migração V1); CONTAINS ("%termo%")
+     * não tem índice que o atenda e percorre a tabela (ou o índice de preço/unidade, se
+     * houver esses filtros).
+     */
+    public enum NameMatch {
+        PREFIX, CONTAINS;
+
+        public static NameMatch from(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Tipo de busca por nome inválido: " + value + " (use prefix ou contains)");
+            }
+        }
+    }
+
+    private String name;
+    private NameMatch nameMatch = NameMatch.PREFIX;
+    private Double minPrice;
+    private Double maxPrice;
+    private String unit;
+    private ProductSort sort = ProductSort.NAME;
+    private boolean descending;
+    private int page;
+    private int size = 20;
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public NameMatch getNameMatch() { return nameMatch; }
+    public void setNameMatch(NameMatch nameMatch) { this.nameMatch = nameMatch; }
+
+    public Double getMinPrice() { return minPrice; }
+    public void setMinPrice(Double minPrice) { this.minPrice = minPrice; }
+
+    public Double getMaxPrice() { return maxPrice; }
+    public void setMaxPrice(Double maxPrice) { this.maxPrice = maxPrice; }
+
+    public String getUnit() { return unit; }
+    public void setUnit(String unit) { this.unit = unit; }
+
+    public ProductSort getSort() { return sort; }
+    public void setSort(ProductSort sort) { this.sort = sort; }
+
+    public boolean isDescending() { return descending; }
+    public void setDescending(boolean descending) { this.descending = descending; }
+
+    public int getPage() { return page; }
+    public void setPage(int page) { this.page = page; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+}
@@ -0,0 +1,29 @@
+package com.insper.product.model;
+
+import java.util.List;
+
+/**
+ * Uma página da busca. Não traz o total de resultados de propósito: contar exigiria
+ * percorrer todas as linhas que casam com o filtro; {@code hasNext} basta para navegar.
+ */
+public class ProductSearchResult {
+    private final List<ProductSummary> items;
+    private final int page;
+    private final int size;
+    private final boolean hasNext;
+
+    public ProductSearchResult(List<ProductSummary> items, int page, int size, boolean hasNext) {
+        this.items = items;
+        this.page = page;
+        this.size = size;
+        this.hasNext = hasNext;
+    }
+
+    public List<ProductSummary> getItems() { return items; }
+
+    public int getPage() { return page; }
+
+    public int getSize() { return size; }
+
+    public boolean isHasNext() { return hasNext; }
+}
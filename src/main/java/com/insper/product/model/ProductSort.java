@@ -0,0 +1,21 @@
+package com.insper.product.model;
+
+import java.util.Locale;
+
+/**
+ * Ordenações suportadas pela paginação por cursor (keyset) de produtos.
+ * Toda ordenação usa o id como critério de desempate, para que o cursor seja estável.
+ */
+public enum ProductSort {
+    ID,
+    NAME,
+    PRICE;
+
+    public static ProductSort from(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Ordenação inválida: " + value);
+        }
+    }
+}
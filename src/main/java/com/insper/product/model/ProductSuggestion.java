@@ -0,0 +1,25 @@
+package com.insper.product.model;
+
+import java.util.UUID;
+
+/**
+ * Um resultado de GET /products/suggest. {@code score} vai de 0 a 1: 1 para nomes que
+ * começam pelo texto digitado; abaixo disso, a semelhança por trigramas.
+ */
+public class ProductSuggestion {
+    private final UUID id;
+    private final String name;
+    private final double score;
+
+    public ProductSuggestion(UUID id, String name, double score) {
+        this.id = id;
+        this.name = name;
+        this.score = score;
+    }
+
+    public UUID getId() { return id; }
+
+    public String getName() { return name; }
+
+    public double getScore() { return score; }
+}
@@ -0,0 +1,29 @@
+package com.insper.product.model;
+
+import java.util.UUID;
+
+/**
+ * Projeção somente leitura de um produto, montada direto da consulta
+ * (sem entidade gerenciada nem snapshot de dirty checking).
+ */
+public class ProductSummary {
+    private final UUID id;
+    private final String name;
+    private final Double price;
+    private final String unit;
+
+    public ProductSummary(UUID id, String name, Double price, String unit) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.unit = unit;
+    }
+
+    public UUID getId() { return id; }
+
+    public String getName() { return name; }
+
+    public Double getPrice() { return price; }
+
+    public String getUnit() { return unit; }
+}
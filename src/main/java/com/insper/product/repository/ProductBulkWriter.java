@@ -0,0 +1,115 @@
+package com.insper.product.repository;
+
+import com.insper.product.model.PriceUpdate;
+import com.insper.product.model.Product;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * INSERT e UPDATE de produtos em lote por JDBC (addBatch), para a importação e a fila de
+ * preços: sem entidades gerenciadas e mantendo o id de cada linha (o Hibernate sempre gera um novo).
+ * Deve ser chamado dentro de uma transação, que também grava os eventos do change feed;
+ * quem chama invalida os caches depois do commit.
+ */
+@Repository
+public class ProductBulkWriter {
+
+    private static final String INSERT = "insert into product (id, name, price, unit, version) values (?, ?, ?, ?, ?)";
+
+    // A versão é incrementada no próprio UPDATE: um PUT concorrente não faz o incremento se perder
+    private static final String UPDATE = "update product set name = ?, price = ?, unit = ?, version = coalesce(version, 0) + 1 where id = ?";
+
+    private static final String UPDATE_PRICE = "update product set price = ?, version = coalesce(version, 0) + 1 where id = ?";
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbc;
+
+    // uuid nativo no Postgres; nos demais (H2), binary(16) como o Hibernate grava
+    private volatile Boolean nativeUuid;
+
+    @PostConstruct
+    void init() {
+        jdbc = new JdbcTemplate(dataSource);
+    }
+
+    public void insertAll(List<Product> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        jdbc.batchUpdate(INSERT, products, products.size(), (ps, product) -> {
+            setId(ps, 1, product.getId());
+            ps.setString(2, product.getName());
+            setPrice(ps, 3, product.getPrice());
+            ps.setString(4, product.getUnit());
+            ps.setLong(5, product.getVersion());
+        });
+    }
+
+    public void updateAll(List<Product> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        jdbc.batchUpdate(UPDATE, products, products.size(), (ps, product) -> {
+            ps.setString(1, product.getName());
+            setPrice(ps, 2, product.getPrice());
+            ps.setString(3, product.getUnit());
+            setId(ps, 4, product.getId());
+        });
+    }
+
+    /**
+     * Um UPDATE de preço por produto, num único lote.
+     *
+     * @return as linhas afetadas por produto, na ordem de {@code prices} (0 se o id não existe)
+     */
+    public int[] updatePrices(List<PriceUpdate> prices) {
+        if (prices.isEmpty()) {
+            return new int[0];
+        }
+        int[] updated = new int[prices.size()];
+        int index = 0;
+        for (int[] batch : jdbc.batchUpdate(UPDATE_PRICE, prices, prices.size(), (ps, price) -> {
+            setPrice(ps, 1, price.getPrice());
+            setId(ps, 2, price.getId());
+        })) {
+            for (int count : batch) {
+                updated[index++] = count;
+            }
+        }
+        return updated;
+    }
+
+    private void setId(PreparedStatement ps, int index, UUID id) throws SQLException {
+        if (nativeUuid == null) {
+            nativeUuid = "PostgreSQL".equals(ps.getConnection().getMetaData().getDatabaseProductName());
+        }
+        if (nativeUuid) {
+            ps.setObject(index, id);
+        } else {
+            ps.setBytes(index, ByteBuffer.allocate(16)
+                                         .putLong(id.getMostSignificantBits())
+                                         .putLong(id.getLeastSignificantBits())
+                                         .array());
+        }
+    }
+
+    private static void setPrice(PreparedStatement ps, int index, Double price) throws SQLException {
+        if (price == null) {
+            ps.setNull(index, Types.DOUBLE);
+        } else {
+            ps.setDouble(index, price);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.insper.product.repository;
+
+import com.insper.product.model.Product;
+import com.insper.product.model.ProductCatalog;
+import com.insper.product.model.ProductFeedHead;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Carrega o catálogo inteiro direto do ResultSet para as colunas de ProductCatalog,
+ * sem criar entidades nem passar pelo contexto de persistência do Hibernate.
+ */
+@Repository
+public class ProductCatalogReader {
+
+    private static final String SELECT_ALL = "select id, name, price, unit, version from product";
+
+    private static final String SELECT_FEED_HEAD = "select seq from product_feed_head where id = ?";
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbc;
+
+    // Tamanho da última carga, para dimensionar as colunas da próxima
+    private volatile int lastSize;
+
+    @PostConstruct
+    void init() {
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.setFetchSize(1000);
+    }
+
+    // Read-only: vai para uma réplica, salvo quando chamado em PrimaryReads (o cache do ProductService)
+    @Transactional(readOnly = true)
+    public ProductCatalog loadAll() {
+        // Lido antes dos produtos: tudo até esse seq já está confirmado e entra na leitura
+        Long head = jdbc.query(SELECT_FEED_HEAD, rs -> rs.next() ? rs.getLong(1) : null, ProductFeedHead.ID);
+        ProductCatalog.Builder builder = ProductCatalog.builder(lastSize).feedSeq(head == null ? 0 : head);
+        jdbc.query(SELECT_ALL, rs -> {
+            Object id = rs.getObject(1);
+            double price = rs.getDouble(3);
+            boolean noPrice = rs.wasNull();
+            long version = rs.getLong(5);
+            boolean noVersion = rs.wasNull();
+            builder.add(mostSignificantBits(id), leastSignificantBits(id),
+                        rs.getString(2),
+                        noPrice ? ProductCatalog.NULL_PRICE : price,
+                        rs.getString(4),
+                        noVersion ? ProductCatalog.NULL : version);
+        });
+        ProductCatalog catalog = builder.build();
+        lastSize = catalog.size();
+        return catalog;
+    }
+
+    /**
+     * Entrega cada produto ao consumidor assim que a linha chega do banco (cursor com
+     * fetch size), para a exportação: nada além da linha atual fica em memória.
+     *
+     * @return quantos produtos foram entregues
+     */
+    @Transactional(readOnly = true)
+    public long forEach(Consumer<Product> consumer) {
+        long[] count = {0};
+        jdbc.query(SELECT_ALL, rs -> {
+            Object id = rs.getObject(1);
+            double price = rs.getDouble(3);
+            boolean noPrice = rs.wasNull();
+            long version = rs.getLong(5);
+            boolean noVersion = rs.wasNull();
+            Product product = new Product(rs.getString(2), noPrice ? null : price, rs.getString(4));
+            product.setId(new UUID(mostSignificantBits(id), leastSignificantBits(id)));
+            product.setVersion(noVersion ? null : version);
+            consumer.accept(product);
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    // O Hibernate grava UUID como binary(16) big-endian no H2 e como uuid nativo no Postgres
+    static long mostSignificantBits(Object id) throws SQLException {
+        if (id instanceof UUID) {
+            return ((UUID) id).getMostSignificantBits();
+        }
+        return readLong(bytes(id), 0);
+    }
+
+    static long leastSignificantBits(Object id) throws SQLException {
+        if (id instanceof UUID) {
+            return ((UUID) id).getLeastSignificantBits();
+        }
+        return readLong(bytes(id), 8);
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = (value << 8) | (bytes[i] & 0xff);
+        }
+        return value;
+    }
+
+    private static byte[] bytes(Object id) throws SQLException {
+        if (id instanceof byte[] && ((byte[]) id).length >= 16) {
+            return (byte[]) id;
+        }
+        throw new SQLException("Coluna id com tipo inesperado: " + (id == null ? "null" : id.getClass().getName()));
+    }
+}
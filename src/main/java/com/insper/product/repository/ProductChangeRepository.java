@@ -0,0 +1,26 @@
+package com.insper.product.repository;
+
+import com.insper.product.model.ProductChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface ProductChangeRepository extends JpaRepository<ProductChange, Long> {
+
+    List<ProductChange> findBySeqGreaterThanOrderBySeqAsc(long seq, Pageable pageable);
+
+    @Query("select min(c.seq) from ProductChange c")
+    Long findMinSeq();
+
+    @Query("select max(c.seq) from ProductChange c")
+    Long findMaxSeq();
+
+    @Modifying
+    @Query("delete from ProductChange c where c.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") Instant before);
+}
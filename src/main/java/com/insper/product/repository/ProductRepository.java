@@ -1,9 +1,126 @@
 package com.insper.product.repository;
 
 import com.insper.product.model.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+public interface ProductRepository extends JpaRepository<Product, UUID>, ProductRepositoryCustom {
+
+    // Paginação keyset: cada página continua a partir da chave do último item da anterior,
+    // sem OFFSET. Nome e preço usam coalesce para que produtos sem valor não sumam do cursor;
+    // no Postgres os índices por expressão (coalesce(...), id) da migração V3 atendem a ordem
+    // e o limite inferior (o "coalesce(...) >= :valor" redundante vira a condição de início da
+    // varredura). No H2 (dev local), sem índice por expressão, a página é ordenada em memória.
+    // Páginas vão para o cache de consultas quando ele está ligado (perfil high-throughput):
+    // são limitadas e qualquer escrita em product as invalida.
+
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    List<Product> findByOrderByIdAsc(Pageable pageable);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    List<Product> findByIdGreaterThanOrderByIdAsc(UUID id, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    @Query("select p from Product p order by coalesce(p.name, ''), p.id")
+    List<Product> findFirstPageOrderByName(Pageable pageable);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    @Query("select p from Product p"
+         + " where coalesce(p.name, '') >= :name and (coalesce(p.name, '') > :name or p.id > :id)"
+         + " order by coalesce(p.name, ''), p.id")
+    List<Product> findPageOrderByNameAfter(@Param("name") String name,
+                                           @Param("id") UUID id,
+                                           Pageable pageable);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    @Query("select p from Product p order by coalesce(p.price, 0.0), p.id")
+    List<Product> findFirstPageOrderByPrice(Pageable pageable);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    @Query("select p from Product p"
+         + " where coalesce(p.price, 0.0) >= :price and (coalesce(p.price, 0.0) > :price or p.id > :id)"
+         + " order by coalesce(p.price, 0.0), p.id")
+    List<Product> findPageOrderByPriceAfter(@Param("price") Double price,
+                                            @Param("id") UUID id,
+                                            Pageable pageable);
+
+    // Leitura por cursor JDBC para o modo streaming; deve ser consumida dentro de uma transação.
+    @QueryHints({
+        @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+        @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("select p from Product p")
+    Stream<Product> streamAllBy();
+
+    // Carga do snapshot em paralelo: cada faixa de ids é lida por uma thread, sem
+    // entidades gerenciadas. A ordem por id é a mesma dos shards do ProductSnapshot
+    @Query("select p.id, p.name, p.price, p.unit, p.version from Product p"
+            + " where p.id >= :from and p.id < :to order by p.id")
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    List<Object[]> findRowsInRange(@Param("from") UUID from, @Param("to") UUID to);
+
+    @Query("select p.id, p.name, p.price, p.unit, p.version from Product p where p.id >= :from order by p.id")
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    List<Object[]> findRowsFrom(@Param("from") UUID from);
+
+    @Query("select p.id, p.name, p.price, p.unit, p.version from Product p")
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    List<Object[]> findAllRows();
+
+    @Query("select p.id, p.name, p.price, p.unit, p.version from Product p where p.id in :ids")
+    List<Object[]> findRowsByIds(@Param("ids") Collection<UUID> ids);
+
+    @Query("select p.id from Product p where p.id in :ids")
+    List<UUID> findExistingIds(@Param("ids") Collection<UUID> ids);
+
+    // Upsert em lote: as linhas ficam travadas até o commit, então a versão incrementada
+    // em memória não se perde para um PUT concorrente (que espera a trava e incrementa depois)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from Product p where p.id in :ids")
+    List<Product> findAllByIdForUpdate(@Param("ids") Collection<UUID> ids);
+
+    // PUT sem versão esperada: a versão nova só é conhecida no banco (relida na mesma transação,
+    // com a linha ainda travada pelo UPDATE)
+    @Query("select p.version from Product p where p.id = :id")
+    Long findVersionById(@Param("id") UUID id);
+
+    // Importação: a versão que o UPDATE em lote acabou de gerar (vai no evento)
+    @Query("select p.id, p.version from Product p where p.id in :ids")
+    List<Object[]> findVersions(@Param("ids") Collection<UUID> ids);
+
+    // Escritas em um único comando: o número de linhas afetadas diz se o produto existia
+    // (e, na versão condicional, se a versão ainda era a esperada), sem SELECT prévio.
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Product p set p.name = :name, p.price = :price, p.unit = :unit,"
+         + " p.version = coalesce(p.version, 0) + 1 where p.id = :id")
+    int updateFields(@Param("id") UUID id,
+                     @Param("name") String name,
+                     @Param("price") Double price,
+                     @Param("unit") String unit);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Product p set p.name = :name, p.price = :price, p.unit = :unit,"
+         + " p.version = :version + 1 where p.id = :id and coalesce(p.version, 0) = :version")
+    int updateFieldsIfVersion(@Param("id") UUID id,
+                              @Param("name") String name,
+                              @Param("price") Double price,
+                              @Param("unit") String unit,
+                              @Param("version") Long version);
 
-public interface ProductRepository extends JpaRepository<Product, UUID> {
-    // Aqui você pode adicionar consultas customizadas se necessário
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Product p where p.id = :id")
+    int deleteProductById(@Param("id") UUID id);
 }
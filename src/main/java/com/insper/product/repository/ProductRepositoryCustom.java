@@ -0,0 +1,18 @@
+package com.insper.product.repository;
+
+import com.insper.product.model.ProductSearchQuery;
+import com.insper.product.model.ProductSummary;
+
+import java.util.List;
+
+/**
+ * Consultas dinâmicas que não cabem em métodos derivados do Spring Data.
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Executa a busca e devolve até {@code size + 1} projeções da página pedida;
+     * o item extra indica que existe próxima página.
+     */
+    List<ProductSummary> search(ProductSearchQuery query);
+}
@@ -0,0 +1,87 @@
+package com.insper.product.repository;
+
+import com.insper.product.model.Product;
+import com.insper.product.model.ProductSearchQuery;
+import com.insper.product.model.ProductSummary;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Implementação de {@link ProductRepositoryCustom}, combinada pelo Spring Data ao
+ * {@link ProductRepository} pelo sufixo "Impl".
+ */
+class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProductSummary> search(ProductSearchQuery query) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductSummary> cq = cb.createQuery(ProductSummary.class);
+        Root<Product> p = cq.from(Product.class);
+
+        cq.select(cb.construct(ProductSummary.class,
+                p.get("id"), p.get("name"), p.get("price"), p.get("unit")));
+
+        List<Predicate> filters = new ArrayList<>();
+        // lower(name) LIKE 'termo%' usa idx_product_lower_name no Postgres; "%termo%" e o H2
+        // (sem índice por expressão) filtram linha a linha
+        if (query.getName() != null && !query.getName().isBlank()) {
+            String term = escapeLike(query.getName().trim().toLowerCase(Locale.ROOT));
+            String pattern = query.getNameMatch() == ProductSearchQuery.NameMatch.CONTAINS
+                    ? "%" + term + "%"
+                    : term + "%";
+            filters.add(cb.like(cb.lower(p.get("name")), pattern, LIKE_ESCAPE));
+        }
+        if (query.getMinPrice() != null) {
+            filters.add(cb.greaterThanOrEqualTo(p.get("price"), query.getMinPrice()));
+        }
+        if (query.getMaxPrice() != null) {
+            filters.add(cb.lessThanOrEqualTo(p.get("price"), query.getMaxPrice()));
+        }
+        if (query.getUnit() != null && !query.getUnit().isBlank()) {
+            filters.add(cb.equal(p.get("unit"), query.getUnit()));
+        }
+        cq.where(filters.toArray(new Predicate[0]));
+
+        Expression<?> sortKey;
+        switch (query.getSort()) {
+            case PRICE:
+                sortKey = p.get("price");
+                break;
+            case ID:
+                sortKey = p.get("id");
+                break;
+            default:
+                sortKey = p.get("name");
+        }
+        List<Order> order = new ArrayList<>();
+        order.add(query.isDescending() ? cb.desc(sortKey) : cb.asc(sortKey));
+        // Desempate pelo id para que as páginas sejam estáveis
+        order.add(query.isDescending() ? cb.desc(p.get("id")) : cb.asc(p.get("id")));
+        cq.orderBy(order);
+
+        // OFFSET limitado pelo controller (MAX_SEARCH_OFFSET)
+        return entityManager.createQuery(cq)
+                            .setFirstResult(query.getPage() * query.getSize())
+                            .setMaxResults(query.getSize() + 1)
+                            .getResultList();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
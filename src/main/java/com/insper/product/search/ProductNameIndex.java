@@ -0,0 +1,283 @@
+package com.insper.product.search;
+
+import com.insper.product.model.ProductCatalog;
+import com.insper.product.model.ProductChange;
+import com.insper.product.model.ProductSuggestion;
+import com.insper.product.service.ProductChangeFeed;
+import com.insper.product.service.ProductChangeLog;
+import com.insper.product.service.ProductService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice de nomes em memória para GET /products/suggest (ver TrigramIndex).
+ *
+ * Construído em paralelo depois da subida, a partir do catálogo, numa thread própria:
+ * até ficar pronto, as consultas recebem {@link NotReadyException}. Fica em dia pelos
+ * eventos do change feed: os desta instância logo depois do commit (ProductChangeLog) e
+ * os das demais pelo poller (ProductChangeFeed). Eventos que chegam durante a construção
+ * são guardados e reaplicados no índice novo; o seq de cada produto descarta repetidos.
+ * A compactação (muitos documentos removidos) segue o mesmo caminho, numa thread própria:
+ * só a cópia dos documentos vivos e a troca ficam sob a trava de escrita.
+ */
+@Component
+public class ProductNameIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductNameIndex.class);
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductChangeLog changeLog;
+
+    @Autowired
+    private ProductChangeFeed changeFeed;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${product.search.enabled:true}")
+    private boolean enabled;
+
+    // Threads da construção (0 = número de processadores)
+    @Value("${product.search.rebuild-parallelism:0}")
+    private int rebuildParallelism;
+
+    // Fração mínima dos trigramas da busca que o nome precisa ter
+    @Value("${product.search.min-similarity:0.5}")
+    private double minSimilarity;
+
+    // Consultas leem com a trava de leitura; eventos e a troca do índice, com a de escrita
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private TrigramIndex index;
+
+    // Não nulo enquanto o índice está sendo construído
+    private List<ProductChange> pending;
+
+    // Não nulo enquanto uma compactação roda: eventos a reaplicar no índice compactado
+    private List<ProductChange> compactionPending;
+
+    // Uma área de trabalho por processador: a consulta é só CPU, mais do que isso só disputaria núcleos
+    private BlockingQueue<TrigramIndex.Scratch> scratches;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        int processors = Runtime.getRuntime().availableProcessors();
+        scratches = new ArrayBlockingQueue<>(processors);
+        for (int i = 0; i < processors; i++) {
+            scratches.add(new TrigramIndex.Scratch());
+        }
+        changeLog.addListener(this::applyAll);
+        changeFeed.addListener(this::applyAll);
+        Gauge.builder("products.search.documents", this, ProductNameIndex::size)
+             .description("Produtos no índice de nomes")
+             .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        Thread builder = new Thread(this::rebuild, "product-name-index");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    /**
+     * Reconstrói o índice a partir do catálogo. As consultas continuam no índice
+     * anterior (se houver) até a troca.
+     */
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        TrigramIndex built;
+        try {
+            // Lido depois de começar a guardar os eventos: nenhuma escrita fica de fora
+            ProductCatalog catalog = productService.findCatalog();
+            int count = catalog.size();
+            long[] high = new long[count];
+            long[] low = new long[count];
+            String[] names = new String[count];
+            for (int i = 0; i < count; i++) {
+                high[i] = catalog.idHigh(i);
+                low[i] = catalog.idLow(i);
+                names[i] = catalog.name(i);
+            }
+            built = TrigramIndex.build(high, low, names, null, count, threads());
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.error("Falha ao construir o índice de nomes", e);
+            throw e;
+        }
+
+        int replayed;
+        lock.writeLock().lock();
+        try {
+            replayed = pending.size();
+            pending.forEach(change -> apply(built, change));
+            pending = null;
+            index = built;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Índice de nomes: {} produtos em {} ms ({} threads, {} eventos reaplicados)",
+                built.size(), (System.nanoTime() - start) / 1_000_000, threads(), replayed);
+    }
+
+    /**
+     * Aplica eventos do change feed já confirmados, na ordem de seq.
+     */
+    public void applyAll(List<ProductChange> changes) {
+        if (!enabled || changes.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                pending.addAll(changes);
+            }
+            if (compactionPending != null) {
+                compactionPending.addAll(changes);
+            }
+            if (index != null) {
+                changes.forEach(change -> apply(index, change));
+                if (compactionPending == null && index.needsCompaction()) {
+                    startCompaction();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Chamado com a trava de escrita, na thread do commit: aqui só a cópia dos vivos
+    private void startCompaction() {
+        TrigramIndex source = index;
+        TrigramIndex.LiveDocs live = source.liveDocs();
+        int removed = source.removedCount();
+        compactionPending = new ArrayList<>();
+        Thread compactor = new Thread(() -> compact(source, live, removed), "product-name-index-compaction");
+        compactor.setDaemon(true);
+        compactor.start();
+    }
+
+    private void compact(TrigramIndex source, TrigramIndex.LiveDocs live, int removed) {
+        long start = System.nanoTime();
+        TrigramIndex compacted;
+        try {
+            compacted = live.build(threads());
+        } catch (RuntimeException e) {
+            logger.error("Falha ao compactar o índice de nomes", e);
+            compacted = null;
+        }
+
+        int replayed = 0;
+        boolean swapped = false;
+        lock.writeLock().lock();
+        try {
+            // Se uma reconstrução trocou o índice nesse meio tempo, o compactado já está velho
+            if (compacted != null && index == source) {
+                TrigramIndex target = compacted;
+                replayed = compactionPending.size();
+                compactionPending.forEach(change -> apply(target, change));
+                index = target;
+                swapped = true;
+            }
+            compactionPending = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (swapped) {
+            logger.info("Índice de nomes compactado: {} documentos removidos descartados em {} ms ({} eventos reaplicados)",
+                    removed, (System.nanoTime() - start) / 1_000_000, replayed);
+        }
+    }
+
+    private static void apply(TrigramIndex target, ProductChange change) {
+        if (change.getType() == ProductChange.Type.DELETE) {
+            target.delete(change.getProductId(), change.getSeq());
+        } else {
+            target.upsert(change.getProductId(), change.getName(), change.getSeq());
+        }
+    }
+
+    /**
+     * @throws NotReadyException se o índice ainda não foi construído (ou está desligado)
+     */
+    public List<ProductSuggestion> suggest(String query, int limit) {
+        if (!enabled) {
+            throw new NotReadyException("Busca por nome desligada (product.search.enabled)");
+        }
+        TrigramIndex.Scratch scratch;
+        try {
+            scratch = scratches.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NotReadyException("Consulta interrompida");
+        }
+        lock.readLock().lock();
+        try {
+            if (index == null) {
+                throw new NotReadyException("Índice de nomes em construção");
+            }
+            return index.suggest(query, limit, minSimilarity, scratch);
+        } finally {
+            lock.readLock().unlock();
+            scratches.add(scratch);
+        }
+    }
+
+    private int size() {
+        lock.readLock().lock();
+        try {
+            return index == null ? 0 : index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int threads() {
+        return rebuildParallelism > 0 ? rebuildParallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * O índice ainda não pode responder.
+     */
+    public static class NotReadyException extends RuntimeException {
+        public NotReadyException(String message) {
+            super(message);
+        }
+    }
+}
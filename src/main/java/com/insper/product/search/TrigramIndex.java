@@ -0,0 +1,693 @@
+package com.insper.product.search;
+
+import com.insper.product.model.ProductSuggestion;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Índice invertido de trigramas sobre os nomes dos produtos, com autocompletar por prefixo.
+ *
+ * Os nomes são normalizados (minúsculas, sem acentos, letras e dígitos separados por um
+ * espaço) e cada palavra, com dois espaços antes e um depois, vira trigramas, como no
+ * pg_trgm. Cada caractere é codificado em 6 bits, então um trigrama é um int de 18 bits
+ * e as listas de postings ficam num array indexado por ele, sem hash. O autocompletar
+ * usa as mesmas listas: só podem começar pelo texto os nomes que têm todos os trigramas
+ * dele (menos o de fim da última palavra), e a menor dessas listas é conferida com startsWith.
+ *
+ * Um documento é uma posição nas colunas. Alterar ou remover um produto marca o documento
+ * antigo como removido e acrescenta um novo no fim, sem reescrever as listas; com muitos
+ * removidos, {@link #compact} reconstrói o índice só com os vivos.
+ *
+ * Escritas não são thread-safe: quem usa serializa as escritas e as separa das consultas
+ * (ver ProductNameIndex). Consultas concorrentes entre si são seguras.
+ */
+public final class TrigramIndex {
+
+    static final int TRIGRAMS = 1 << 18;
+
+    // Texto além disso não melhora a busca, só a encarece
+    static final int MAX_QUERY_LENGTH = 64;
+
+    // Compacta quando os removidos passam de 1/4 dos vivos (e desse mínimo)
+    private static final int COMPACTION_MIN_REMOVED = 10_000;
+
+    // Abaixo disso não compensa dividir a construção entre threads
+    private static final int MIN_DOCS_PER_THREAD = 10_000;
+
+    private int size;
+    private int live;
+    private long[] high;
+    private long[] low;
+    private long[] seqs;
+    private String[] names;
+    private String[] normalized;
+    private int[] trigramCounts;
+    private final BitSet removed = new BitSet();
+    private final Postings postings = new Postings();
+    private final DocTable docs;
+
+    // Pior candidato primeiro: menor pontuação e, no empate, o nome que viria por último
+    private final Comparator<Candidate> worstFirst = (a, b) -> compare(a.score, a.doc, b);
+
+    private TrigramIndex(int capacity) {
+        capacity = Math.max(16, capacity);
+        high = new long[capacity];
+        low = new long[capacity];
+        seqs = new long[capacity];
+        names = new String[capacity];
+        normalized = new String[capacity];
+        trigramCounts = new int[capacity];
+        docs = new DocTable(capacity);
+    }
+
+    public static TrigramIndex empty() {
+        return new TrigramIndex(16);
+    }
+
+    /**
+     * Monta o índice em paralelo: cada thread normaliza e indexa uma faixa contígua de
+     * documentos em listas próprias, e depois as listas de cada trigrama são concatenadas
+     * na ordem das faixas (também em paralelo, por faixa de trigramas).
+     *
+     * @param seqs seq do change feed de cada produto, ou null (todos 0)
+     */
+    public static TrigramIndex build(long[] high, long[] low, String[] names, long[] seqs, int count, int threads) {
+        TrigramIndex index = new TrigramIndex(count);
+        System.arraycopy(high, 0, index.high, 0, count);
+        System.arraycopy(low, 0, index.low, 0, count);
+        System.arraycopy(names, 0, index.names, 0, count);
+        if (seqs != null) {
+            System.arraycopy(seqs, 0, index.seqs, 0, count);
+        }
+        index.size = count;
+        index.live = count;
+
+        int parts = Math.max(1, Math.min(threads, count / MIN_DOCS_PER_THREAD));
+        if (parts == 1) {
+            index.postings.append(index.indexRange(0, count));
+        } else {
+            index.buildInParallel(count, parts);
+        }
+        for (int doc = 0; doc < count; doc++) {
+            index.docs.put(high[doc], low[doc], doc);
+        }
+        return index;
+    }
+
+    private void buildInParallel(int count, int parts) {
+        ExecutorService pool = Executors.newFixedThreadPool(parts);
+        try {
+            int chunk = (count + parts - 1) / parts;
+            List<Future<Postings>> indexed = new ArrayList<>(parts);
+            for (int p = 0; p < parts; p++) {
+                int from = Math.min(count, p * chunk);
+                int to = Math.min(count, from + chunk);
+                indexed.add(pool.submit(() -> indexRange(from, to)));
+            }
+            Postings[] partial = new Postings[parts];
+            for (int p = 0; p < parts; p++) {
+                partial[p] = indexed.get(p).get();
+            }
+
+            int range = (TRIGRAMS + parts - 1) / parts;
+            List<Future<?>> merged = new ArrayList<>(parts);
+            for (int p = 0; p < parts; p++) {
+                int from = p * range;
+                int to = Math.min(TRIGRAMS, from + range);
+                merged.add(pool.submit(() -> postings.merge(partial, from, to)));
+            }
+            for (Future<?> future : merged) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Construção do índice interrompida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falha ao construir o índice de nomes", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Cada thread escreve só nas posições da sua faixa
+    private Postings indexRange(int from, int to) {
+        Postings local = new Postings();
+        for (int doc = from; doc < to; doc++) {
+            String norm = normalize(names[doc]);
+            normalized[doc] = norm;
+            int[] grams = trigrams(norm);
+            trigramCounts[doc] = grams.length;
+            for (int gram : grams) {
+                local.add(gram, doc);
+            }
+        }
+        return local;
+    }
+
+    /** Produtos no índice (sem contar os documentos removidos). */
+    public int size() {
+        return live;
+    }
+
+    public int removedCount() {
+        return size - live;
+    }
+
+    public boolean needsCompaction() {
+        return removedCount() > Math.max(COMPACTION_MIN_REMOVED, live / 4);
+    }
+
+    /**
+     * Novo índice só com os documentos vivos (os seqs são mantidos).
+     */
+    public TrigramIndex compact(int threads) {
+        return liveDocs().build(threads);
+    }
+
+    /**
+     * Cópia das colunas dos documentos vivos: é a parte de {@link #compact} que precisa
+     * ver o índice parado. A construção a partir dela pode rodar junto com escritas.
+     */
+    public LiveDocs liveDocs() {
+        long[] h = new long[live];
+        long[] l = new long[live];
+        long[] s = new long[live];
+        String[] n = new String[live];
+        int i = 0;
+        for (int doc = removed.nextClearBit(0); doc < size; doc = removed.nextClearBit(doc + 1)) {
+            h[i] = high[doc];
+            l[i] = low[doc];
+            s[i] = seqs[doc];
+            n[i] = names[doc];
+            i++;
+        }
+        return new LiveDocs(h, l, s, n);
+    }
+
+    public static final class LiveDocs {
+        private final long[] high;
+        private final long[] low;
+        private final long[] seqs;
+        private final String[] names;
+
+        private LiveDocs(long[] high, long[] low, long[] seqs, String[] names) {
+            this.high = high;
+            this.low = low;
+            this.seqs = seqs;
+            this.names = names;
+        }
+
+        public TrigramIndex build(int threads) {
+            return TrigramIndex.build(high, low, names, seqs, names.length, threads);
+        }
+    }
+
+    /**
+     * Insere ou renomeia. Ignorado se o índice já tem um seq igual ou mais novo para o
+     * produto (o mesmo evento chega pelo commit local e pelo poller do change feed).
+     */
+    public void upsert(UUID id, String name, long seq) {
+        long h = id.getMostSignificantBits();
+        long l = id.getLeastSignificantBits();
+        int doc = docs.get(h, l);
+        String norm = normalize(name);
+        if (doc >= 0) {
+            if (seq <= seqs[doc]) {
+                return;
+            }
+            if (!removed.get(doc) && norm.equals(normalized[doc])) {
+                names[doc] = name;
+                seqs[doc] = seq;
+                return;
+            }
+            remove(doc);
+        }
+        append(h, l, name, norm, seq);
+    }
+
+    /**
+     * Remove. O seq fica guardado, para que um upsert atrasado do mesmo produto não o traga de volta.
+     */
+    public void delete(UUID id, long seq) {
+        long h = id.getMostSignificantBits();
+        long l = id.getLeastSignificantBits();
+        int doc = docs.get(h, l);
+        if (doc < 0) {
+            remove(append(h, l, null, "", seq));
+        } else if (seq > seqs[doc]) {
+            remove(doc);
+            seqs[doc] = seq;
+        }
+    }
+
+    private int append(long h, long l, String name, String norm, long seq) {
+        if (size == high.length) {
+            grow();
+        }
+        int doc = size++;
+        high[doc] = h;
+        low[doc] = l;
+        seqs[doc] = seq;
+        names[doc] = name;
+        normalized[doc] = norm;
+        int[] grams = trigrams(norm);
+        trigramCounts[doc] = grams.length;
+        for (int gram : grams) {
+            postings.add(gram, doc);
+        }
+        live++;
+        docs.put(h, l, doc);
+        return doc;
+    }
+
+    // As listas continuam apontando para o documento; as consultas o pulam
+    private void remove(int doc) {
+        if (removed.get(doc)) {
+            return;
+        }
+        removed.set(doc);
+        live--;
+        names[doc] = null;
+        normalized[doc] = "";
+    }
+
+    private void grow() {
+        int capacity = high.length + (high.length >> 1);
+        high = Arrays.copyOf(high, capacity);
+        low = Arrays.copyOf(low, capacity);
+        seqs = Arrays.copyOf(seqs, capacity);
+        names = Arrays.copyOf(names, capacity);
+        normalized = Arrays.copyOf(normalized, capacity);
+        trigramCounts = Arrays.copyOf(trigramCounts, capacity);
+    }
+
+    /**
+     * Primeiro os nomes que começam pelo texto (ordem alfabética, pontuação 1); o resto
+     * do limite vem dos trigramas. A semelhança combina a fração dos trigramas da busca
+     * encontrada no nome (tolera nome mais longo que o texto) com o índice de Jaccard
+     * (favorece nomes sem trigramas sobrando); só entram nomes com pelo menos
+     * {@code minSimilarity} dos trigramas da busca.
+     */
+    public List<ProductSuggestion> suggest(String query, int limit, double minSimilarity, Scratch scratch) {
+        String text = normalize(query);
+        if (text.length() > MAX_QUERY_LENGTH) {
+            text = text.substring(0, MAX_QUERY_LENGTH).trim();
+        }
+        List<ProductSuggestion> results = new ArrayList<>(limit);
+        if (text.isEmpty() || limit <= 0) {
+            return results;
+        }
+
+        Set<Integer> prefixed = new HashSet<>();
+        for (int doc : withPrefix(text, limit)) {
+            results.add(suggestion(doc, 1.0));
+            prefixed.add(doc);
+        }
+        if (results.size() < limit) {
+            results.addAll(similar(text, limit - results.size(), minSimilarity, prefixed, scratch));
+        }
+        return results;
+    }
+
+    // Até limit documentos cujo nome começa pelo texto, em ordem alfabética
+    private int[] withPrefix(String text, int limit) {
+        int[] grams = trigrams(text, false);
+        int rarest = grams[0];
+        for (int gram : grams) {
+            if (postings.sizes[gram] < postings.sizes[rarest]) {
+                rarest = gram;
+            }
+        }
+        PriorityQueue<Integer> last = new PriorityQueue<>(limit + 1,
+                (a, b) -> -compareNames(a, b));
+        int[] list = postings.lists[rarest];
+        int length = postings.sizes[rarest];
+        for (int i = 0; i < length; i++) {
+            int doc = list[i];
+            if (removed.get(doc) || !normalized[doc].startsWith(text)) {
+                continue;
+            }
+            if (last.size() < limit) {
+                last.add(doc);
+            } else if (compareNames(doc, last.peek()) < 0) {
+                last.poll();
+                last.add(doc);
+            }
+        }
+        int[] docs = new int[last.size()];
+        for (int i = docs.length - 1; i >= 0; i--) {
+            docs[i] = last.poll();
+        }
+        return docs;
+    }
+
+    /**
+     * Conta, por documento, quantos trigramas da busca ele tem. As listas são percorridas
+     * da menor para a maior; um documento que não apareceu nas primeiras (qn - need + 1)
+     * não alcança o mínimo, então nas maiores só os já vistos contam, por busca binária
+     * quando ela sai mais barata que percorrer a lista.
+     */
+    private List<ProductSuggestion> similar(String text, int wanted, double minSimilarity,
+                                            Set<Integer> exclude, Scratch scratch) {
+        int[] grams = trigrams(text, true);
+        int queryGrams = grams.length;
+        int need = Math.max(1, (int) Math.ceil(minSimilarity * queryGrams));
+        Integer[] bySize = new Integer[queryGrams];
+        for (int i = 0; i < queryGrams; i++) {
+            bySize[i] = grams[i];
+        }
+        Arrays.sort(bySize, Comparator.comparingInt(gram -> postings.sizes[gram]));
+
+        scratch.ensureCapacity(size);
+        byte[] counts = scratch.counts;
+        int touched = 0;
+        for (int g = 0; g < queryGrams; g++) {
+            int[] list = postings.lists[bySize[g]];
+            int length = postings.sizes[bySize[g]];
+            if (g <= queryGrams - need) {
+                for (int i = 0; i < length; i++) {
+                    int doc = list[i];
+                    if (counts[doc]++ == 0) {
+                        touched = scratch.touch(touched, doc);
+                    }
+                }
+            } else if ((long) touched * (32 - Integer.numberOfLeadingZeros(length)) < length) {
+                for (int t = 0; t < touched; t++) {
+                    int doc = scratch.touched[t];
+                    if (Arrays.binarySearch(list, 0, length, doc) >= 0) {
+                        counts[doc]++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < length; i++) {
+                    int doc = list[i];
+                    if (counts[doc] != 0) {
+                        counts[doc]++;
+                    }
+                }
+            }
+        }
+
+        PriorityQueue<Candidate> best = new PriorityQueue<>(wanted + 1, worstFirst);
+        for (int t = 0; t < touched; t++) {
+            int doc = scratch.touched[t];
+            int shared = counts[doc];
+            counts[doc] = 0;
+            if (shared < need || removed.get(doc) || (!exclude.isEmpty() && exclude.contains(doc))) {
+                continue;
+            }
+            double coverage = (double) shared / queryGrams;
+            double jaccard = (double) shared / (queryGrams + trigramCounts[doc] - shared);
+            double score = (coverage + jaccard) / 2;
+            if (best.size() < wanted) {
+                best.add(new Candidate(doc, score));
+            } else if (compare(score, doc, best.peek()) > 0) {
+                best.poll();
+                best.add(new Candidate(doc, score));
+            }
+        }
+
+        ProductSuggestion[] ranked = new ProductSuggestion[best.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            Candidate candidate = best.poll();
+            ranked[i] = suggestion(candidate.doc, Math.round(candidate.score * 1000) / 1000.0);
+        }
+        return Arrays.asList(ranked);
+    }
+
+    private ProductSuggestion suggestion(int doc, double score) {
+        return new ProductSuggestion(new UUID(high[doc], low[doc]), names[doc], score);
+    }
+
+    // Positivo se (score, doc) é melhor que o candidato
+    private int compare(double score, int doc, Candidate other) {
+        int c = Double.compare(score, other.score);
+        if (c != 0) {
+            return c;
+        }
+        c = normalized[other.doc].compareTo(normalized[doc]);
+        return c != 0 ? c : Integer.compare(other.doc, doc);
+    }
+
+    private int compareNames(int a, int b) {
+        int c = normalized[a].compareTo(normalized[b]);
+        return c != 0 ? c : Integer.compare(a, b);
+    }
+
+    /**
+     * Minúsculas, sem acentos, só letras e dígitos, palavras separadas por um espaço.
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        // Nome só em ASCII não tem acento para tirar: evita a decomposição, que é a parte cara
+        String decomposed = isAscii(text) ? text : Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder out = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                out.append(Character.toLowerCase(c));
+            } else if (out.length() > 0 && out.charAt(out.length() - 1) != ' ') {
+                out.append(' ');
+            }
+        }
+        int end = out.length();
+        if (end > 0 && out.charAt(end - 1) == ' ') {
+            out.setLength(end - 1);
+        }
+        return out.toString();
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int[] trigrams(String normalized) {
+        return trigrams(normalized, true);
+    }
+
+    /**
+     * Trigramas distintos (ordenados) de um texto já normalizado. Uma palavra de n
+     * caracteres gera n + 1 trigramas: "  c", " ca", "cas", "asa", "sa ". Sem
+     * {@code closeLastWord}, a última palavra fica sem o de fim ("sa "): é um prefixo.
+     */
+    static int[] trigrams(String normalized, boolean closeLastWord) {
+        int[] grams = new int[normalized.length() + 1];
+        int n = 0;
+        int a = 0;
+        int b = 0;
+        for (int i = 0; i <= normalized.length(); i++) {
+            int c = i == normalized.length() ? 0 : code(normalized.charAt(i));
+            if (c == 0) {
+                if (b != 0 && (closeLastWord || i < normalized.length())) {
+                    grams[n++] = trigram(a, b, 0);
+                }
+                a = 0;
+                b = 0;
+            } else {
+                grams[n++] = trigram(a, b, c);
+                a = b;
+                b = c;
+            }
+        }
+        Arrays.sort(grams, 0, n);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinct == 0 || grams[distinct - 1] != grams[i]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    // 0 = espaço, 1-10 dígitos, 11-36 letras a-z, 37-63 demais letras (agrupadas)
+    private static int code(char c) {
+        if (c == ' ') {
+            return 0;
+        }
+        if (c >= '0' && c <= '9') {
+            return 1 + (c - '0');
+        }
+        if (c >= 'a' && c <= 'z') {
+            return 11 + (c - 'a');
+        }
+        return 37 + c % 27;
+    }
+
+    private static int trigram(int a, int b, int c) {
+        return a << 12 | b << 6 | c;
+    }
+
+    /**
+     * Área de trabalho de uma consulta: contadores por documento (zerados de volta ao fim
+     * de cada consulta) e a lista dos documentos tocados. Usada por uma thread de cada vez.
+     */
+    public static final class Scratch {
+        private byte[] counts = new byte[0];
+        private int[] touched = new int[1024];
+
+        void ensureCapacity(int docs) {
+            if (counts.length < docs) {
+                counts = new byte[docs + (docs >> 2)];
+            }
+        }
+
+        int touch(int count, int doc) {
+            if (count == touched.length) {
+                touched = Arrays.copyOf(touched, count * 2);
+            }
+            touched[count] = doc;
+            return count + 1;
+        }
+    }
+
+    private static final class Candidate {
+        final int doc;
+        final double score;
+
+        Candidate(int doc, double score) {
+            this.doc = doc;
+            this.score = score;
+        }
+    }
+
+    // Listas de documentos por trigrama, que crescem por acréscimo
+    private static final class Postings {
+        final int[][] lists = new int[TRIGRAMS][];
+        final int[] sizes = new int[TRIGRAMS];
+
+        void add(int gram, int doc) {
+            int[] list = lists[gram];
+            int n = sizes[gram];
+            if (list == null) {
+                list = new int[4];
+                lists[gram] = list;
+            } else if (n == list.length) {
+                list = Arrays.copyOf(list, n + (n >> 1) + 1);
+                lists[gram] = list;
+            }
+            list[n] = doc;
+            sizes[gram] = n + 1;
+        }
+
+        void append(Postings other) {
+            merge(new Postings[] {other}, 0, TRIGRAMS);
+        }
+
+        // Concatena as listas parciais, na ordem, para os trigramas em [from, to)
+        void merge(Postings[] partial, int from, int to) {
+            for (int gram = from; gram < to; gram++) {
+                int total = sizes[gram];
+                for (Postings p : partial) {
+                    total += p.sizes[gram];
+                }
+                if (total == sizes[gram]) {
+                    continue;
+                }
+                int[] list = lists[gram] == null ? new int[total] : Arrays.copyOf(lists[gram], total);
+                int position = sizes[gram];
+                for (Postings p : partial) {
+                    if (p.sizes[gram] > 0) {
+                        System.arraycopy(p.lists[gram], 0, list, position, p.sizes[gram]);
+                        position += p.sizes[gram];
+                    }
+                }
+                lists[gram] = list;
+                sizes[gram] = total;
+            }
+        }
+    }
+
+    /**
+     * Tabela de endereçamento aberto (UUID → documento) com os ids em dois long[], sem
+     * um UUID e um Integer por produto. Só cresce: o índice nunca tira um id da tabela.
+     */
+    private static final class DocTable {
+        private long[] high;
+        private long[] low;
+        private int[] docs;
+        private int count;
+
+        DocTable(int expected) {
+            allocate(Integer.highestOneBit(Math.max(16, expected) * 2 - 1) * 2);
+        }
+
+        private void allocate(int capacity) {
+            high = new long[capacity];
+            low = new long[capacity];
+            docs = new int[capacity];
+            Arrays.fill(docs, -1);
+        }
+
+        int get(long h, long l) {
+            int mask = docs.length - 1;
+            for (int i = slot(h, l, mask); ; i = (i + 1) & mask) {
+                int doc = docs[i];
+                if (doc < 0) {
+                    return -1;
+                }
+                if (high[i] == h && low[i] == l) {
+                    return doc;
+                }
+            }
+        }
+
+        void put(long h, long l, int doc) {
+            if ((count + 1) * 2 > docs.length) {
+                resize();
+            }
+            int mask = docs.length - 1;
+            int i = slot(h, l, mask);
+            while (docs[i] >= 0 && !(high[i] == h && low[i] == l)) {
+                i = (i + 1) & mask;
+            }
+            if (docs[i] < 0) {
+                count++;
+            }
+            high[i] = h;
+            low[i] = l;
+            docs[i] = doc;
+        }
+
+        private void resize() {
+            long[] oldHigh = high;
+            long[] oldLow = low;
+            int[] oldDocs = docs;
+            allocate(oldDocs.length * 2);
+            count = 0;
+            for (int i = 0; i < oldDocs.length; i++) {
+                if (oldDocs[i] >= 0) {
+                    put(oldHigh[i], oldLow[i], oldDocs[i]);
+                }
+            }
+        }
+
+        private static int slot(long h, long l, int mask) {
+            long z = h ^ (l * 0x9e3779b97f4a7c15L);
+            z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+            return (int) (z ^ (z >>> 33)) & mask;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.insper.product.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Junta buscas concorrentes pelas mesmas chaves: enquanto uma chave está sendo buscada,
+ * quem a pedir de novo espera o resultado dessa busca em vez de repetir a consulta.
+ * Cada chamada busca primeiro as chaves que são só suas e depois espera as dos outros,
+ * então duas buscas com chaves em comum nunca esperam uma pela outra em ciclo.
+ */
+final class CoalescingLoader<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param loader recebe as chaves a buscar e devolve os valores encontrados
+     * @return os valores encontrados (chaves sem valor ficam de fora)
+     */
+    Map<K, V> loadAll(Collection<K> keys, Function<Set<K>, Map<K, V>> loader) {
+        Map<K, CompletableFuture<V>> owned = new HashMap<>();
+        Map<K, CompletableFuture<V>> shared = new HashMap<>();
+        for (K key : keys) {
+            if (owned.containsKey(key) || shared.containsKey(key)) {
+                continue;
+            }
+            CompletableFuture<V> future = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+            if (existing == null) {
+                owned.put(key, future);
+            } else {
+                shared.put(key, existing);
+            }
+        }
+
+        Map<K, V> result = new HashMap<>();
+        if (!owned.isEmpty()) {
+            try {
+                Map<K, V> loaded = loader.apply(owned.keySet());
+                owned.forEach((key, future) -> {
+                    V value = loaded.get(key);
+                    if (value != null) {
+                        result.put(key, value);
+                    }
+                    future.complete(value);
+                });
+            } catch (RuntimeException | Error e) {
+                owned.values().forEach(future -> future.completeExceptionally(e));
+                throw e;
+            } finally {
+                owned.forEach(inFlight::remove);
+            }
+        }
+        shared.forEach((key, future) -> {
+            V value = join(future);
+            if (value != null) {
+                result.put(key, value);
+            }
+        });
+        return result;
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+
+    // A falha de quem fez a busca é repassada como veio, sem o CompletionException em volta
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
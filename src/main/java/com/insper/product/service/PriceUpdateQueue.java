@@ -0,0 +1,244 @@
+package com.insper.product.service;
+
+import com.insper.product.model.PriceUpdate;
+import com.insper.product.model.Product;
+import com.insper.product.repository.ProductBulkWriter;
+import com.insper.product.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fila de preços de POST /products/prices (write-behind): as atualizações ficam em memória,
+ * uma por produto (a mais recente substitui as anteriores ainda não gravadas), e são gravadas
+ * a cada {@code product.prices.flush-interval-ms} em lotes de {@code product.prices.batch-size},
+ * um por transação: UPDATE por JDBC em lote, eventos do change feed na mesma transação e
+ * invalidação dos caches depois do commit, como nas demais escritas.
+ *
+ * A fila guarda no máximo {@code product.prices.capacity} produtos; acima disso (ou durante o
+ * desligamento) a requisição inteira é recusada com {@link QueueFullException}, e o cliente
+ * deve repetir depois. No desligamento a fila é gravada até o fim antes de o pool de conexões
+ * fechar; uma queda do processo perde o que ainda não foi gravado.
+ */
+@Service
+public class PriceUpdateQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceUpdateQueue.class);
+
+    @Autowired
+    private ProductBulkWriter bulkWriter;
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private ProductChangeLog changeLog;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${product.prices.capacity:100000}")
+    private int capacity;
+
+    @Value("${product.prices.batch-size:1000}")
+    private int batchSize;
+
+    private final ConcurrentHashMap<UUID, Double> pending = new ConcurrentHashMap<>();
+
+    // Uma gravação por vez: o agendador e o desligamento não disputam os mesmos ids
+    private final Object flushLock = new Object();
+
+    private volatile boolean closed;
+
+    private TransactionTemplate tx;
+
+    private Counter accepted;
+    private Counter coalesced;
+    private Counter rejected;
+    private Counter unknown;
+    private Counter failed;
+    private Timer flushTimer;
+    private DistributionSummary batchSizes;
+
+    @PostConstruct
+    void init() {
+        tx = new TransactionTemplate(transactionManager);
+        Gauge.builder("products.prices.queue.depth", pending, Map::size)
+             .description("Produtos com preço aguardando gravação")
+             .register(meterRegistry);
+        accepted = outcome("accepted");
+        coalesced = outcome("coalesced");
+        rejected = outcome("rejected");
+        unknown = outcome("unknown");
+        failed = outcome("failed");
+        flushTimer = Timer.builder("products.prices.flush")
+                          .description("Gravação de um lote de preços (transação inteira)")
+                          .publishPercentiles(0.5, 0.99)
+                          .register(meterRegistry);
+        batchSizes = DistributionSummary.builder("products.prices.batch.size")
+                                        .description("Produtos por lote gravado")
+                                        .register(meterRegistry);
+    }
+
+    private Counter outcome(String outcome) {
+        return Counter.builder("products.prices.updates")
+                      .description("Atualizações de preço por resultado (coalesced = substituída por outra mais nova antes de gravar)")
+                      .tag("outcome", outcome)
+                      .register(meterRegistry);
+    }
+
+    /**
+     * Enfileira as atualizações (todas ou nenhuma).
+     *
+     * @throws IllegalArgumentException se algum item não tiver id ou preço
+     * @throws QueueFullException se a fila está cheia ou o serviço está desligando
+     */
+    public void submit(List<PriceUpdate> updates) {
+        for (PriceUpdate update : updates) {
+            if (update == null || update.getId() == null || update.getPrice() == null) {
+                throw new IllegalArgumentException("Cada atualização precisa de id e price");
+            }
+        }
+        // Aproximado sob concorrência: a capacidade pode ser excedida por requisições simultâneas
+        if (closed || pending.size() + updates.size() > capacity) {
+            rejected.increment(updates.size());
+            throw new QueueFullException(closed
+                    ? "Serviço desligando; a fila de preços não aceita novas atualizações"
+                    : "Fila de preços cheia (" + capacity + " produtos); tente novamente em instantes");
+        }
+        for (PriceUpdate update : updates) {
+            if (pending.put(update.getId(), update.getPrice()) != null) {
+                coalesced.increment();
+            }
+        }
+        accepted.increment(updates.size());
+    }
+
+    public int depth() {
+        return pending.size();
+    }
+
+    @Scheduled(fixedDelayString = "${product.prices.flush-interval-ms:200}")
+    public void flush() {
+        synchronized (flushLock) {
+            // Só o que já estava na fila: com entrada contínua, a gravação não fica sem fim
+            int toWrite = pending.size();
+            while (toWrite > 0 && !pending.isEmpty()) {
+                List<PriceUpdate> batch = take();
+                toWrite -= batch.size();
+                if (!write(batch)) {
+                    // Banco indisponível: devolve à fila sem sobrescrever preços mais novos
+                    batch.forEach(update -> pending.putIfAbsent(update.getId(), update.getPrice()));
+                    return;
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    void drain() {
+        closed = true;
+        synchronized (flushLock) {
+            int remaining = pending.size();
+            while (!pending.isEmpty()) {
+                List<PriceUpdate> batch = take();
+                if (!write(batch)) {
+                    logger.error("Desligamento: {} atualizações de preço não puderam ser gravadas e foram perdidas",
+                            batch.size() + pending.size());
+                    return;
+                }
+            }
+            if (remaining > 0) {
+                logger.info("Desligamento: {} atualizações de preço pendentes gravadas", remaining);
+            }
+        }
+    }
+
+    private List<PriceUpdate> take() {
+        List<PriceUpdate> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+        Iterator<UUID> ids = pending.keySet().iterator();
+        while (ids.hasNext() && batch.size() < batchSize) {
+            UUID id = ids.next();
+            Double price = pending.remove(id);
+            if (price != null) {
+                batch.add(new PriceUpdate(id, price));
+            }
+        }
+        return batch;
+    }
+
+    private boolean write(List<PriceUpdate> batch) {
+        if (batch.isEmpty()) {
+            return true;
+        }
+        List<UUID> written;
+        long start = System.nanoTime();
+        try {
+            written = tx.execute(status -> update(batch));
+        } catch (RuntimeException ex) {
+            failed.increment(batch.size());
+            logger.warn("Falha ao gravar {} preços; nova tentativa na próxima gravação: {}", batch.size(), ex.getMessage());
+            return false;
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        batchSizes.record(batch.size());
+        unknown.increment(batch.size() - written.size());
+        productService.evictAll(written);
+        return true;
+    }
+
+    // Devolve os ids atualizados (ids inexistentes são descartados)
+    private List<UUID> update(List<PriceUpdate> batch) {
+        int[] counts = bulkWriter.updatePrices(batch);
+        List<UUID> written = new ArrayList<>(batch.size());
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                written.add(batch.get(i).getId());
+            }
+        }
+        if (!written.isEmpty()) {
+            // O evento leva o produto inteiro, com a versão que o UPDATE acabou de gerar
+            for (Object[] row : repository.findRowsByIds(written)) {
+                Product product = new Product((String) row[1], (Double) row[2], (String) row[3]);
+                product.setId((UUID) row[0]);
+                product.setVersion((Long) row[4]);
+                changeLog.recordUpsert(product);
+            }
+        }
+        return written;
+    }
+
+    /** A fila não aceita a requisição agora (cheia ou desligando): responder 503 com Retry-After. */
+    public static class QueueFullException extends RuntimeException {
+        public QueueFullException(String message) {
+            super(message);
+        }
+    }
+}
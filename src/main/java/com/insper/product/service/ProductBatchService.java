@@ -0,0 +1,259 @@
+package com.insper.product.service;
+
+import com.insper.product.model.BatchItemResult;
+import com.insper.product.model.BatchItemResult.Status;
+import com.insper.product.model.BatchResult;
+import com.insper.product.model.Product;
+import com.insper.product.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Escritas em lote. Cada bloco de {@code product.batch.chunk-size} itens roda na sua
+ * própria transação, com o batching JDBC do Hibernate (ver application.properties):
+ * um INSERT/UPDATE por bloco em vez de um por produto, e memória limitada ao bloco.
+ *
+ * Se um bloco falhar, ele é refeito item a item para isolar quem falhou; os demais
+ * itens do bloco continuam sendo gravados.
+ *
+ * O contexto de persistência é limpo depois de cada bloco: com open-in-view ele é o da
+ * requisição inteira, e sem isso acumularia todas as entidades do lote (e cada flush
+ * seguinte faria o dirty checking de todas elas).
+ */
+@Service
+public class ProductBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductBatchService.class);
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductChangeLog changeLog;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${product.batch.chunk-size:500}")
+    private int chunkSize;
+
+    private TransactionTemplate tx;
+
+    @PostConstruct
+    void init() {
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Cria todos os produtos; o id é sempre gerado pelo servidor, como no POST unitário.
+     */
+    public BatchResult createAll(List<Product> products) {
+        long start = System.nanoTime();
+        BatchItemResult[] results = new BatchItemResult[products.size()];
+
+        forEachChunk(products.size(), (from, to) -> {
+            List<Integer> valid = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                Product product = products.get(i);
+                if (product == null) {
+                    results[i] = new BatchItemResult(i, null, Status.INVALID, "item nulo");
+                } else {
+                    product.setId(null);
+                    valid.add(i);
+                }
+            }
+            try {
+                inTransaction(() -> valid.forEach(i -> persist(products.get(i))));
+                valid.forEach(i -> results[i] = BatchItemResult.ok(i, products.get(i).getId(), Status.CREATED));
+            } catch (RuntimeException chunkFailure) {
+                logger.warn("Falha no bloco [{}, {}) do lote; refazendo item a item: {}", from, to, chunkFailure.getMessage());
+                for (int i : valid) {
+                    Product product = products.get(i);
+                    product.setId(null);
+                    try {
+                        inTransaction(() -> persist(product));
+                        results[i] = BatchItemResult.ok(i, product.getId(), Status.CREATED);
+                    } catch (RuntimeException ex) {
+                        results[i] = new BatchItemResult(i, null, Status.FAILED, ex.getMessage());
+                    }
+                }
+            }
+        });
+
+        return finish("criação", results, start);
+    }
+
+    /**
+     * Atualiza os produtos com id existente e cria os sem id. Ids desconhecidos
+     * retornam NOT_FOUND, como no PUT unitário. Os existentes de cada bloco são
+     * carregados e travados (SELECT ... FOR UPDATE) com uma única consulta IN e gravados
+     * pelo dirty checking; a versão é incrementada sob a trava.
+     */
+    public BatchResult upsertAll(List<Product> products) {
+        long start = System.nanoTime();
+        BatchItemResult[] results = new BatchItemResult[products.size()];
+
+        // Guardado antes de gravar: após um rollback os novos já terão id gerado
+        boolean[] isNew = new boolean[products.size()];
+        for (int i = 0; i < products.size(); i++) {
+            isNew[i] = products.get(i) != null && products.get(i).getId() == null;
+        }
+
+        forEachChunk(products.size(), (from, to) -> {
+            try {
+                inTransaction(() -> upsertChunk(products, isNew, from, to, results));
+            } catch (RuntimeException chunkFailure) {
+                logger.warn("Falha no bloco [{}, {}) do lote; refazendo item a item: {}", from, to, chunkFailure.getMessage());
+                for (int i = from; i < to; i++) {
+                    int index = i;
+                    try {
+                        inTransaction(() -> upsertChunk(products, isNew, index, index + 1, results));
+                    } catch (RuntimeException ex) {
+                        UUID id = isNew[index] ? null : products.get(index).getId();
+                        results[index] = new BatchItemResult(index, id, Status.FAILED, ex.getMessage());
+                    }
+                }
+            }
+        });
+
+        return finish("upsert", results, start);
+    }
+
+    private void upsertChunk(List<Product> products, boolean[] isNew, int from, int to, BatchItemResult[] results) {
+        Set<UUID> ids = new HashSet<>();
+        for (int i = from; i < to; i++) {
+            if (products.get(i) != null && !isNew[i]) {
+                ids.add(products.get(i).getId());
+            }
+        }
+        Map<UUID, Product> existing = new HashMap<>();
+        if (!ids.isEmpty()) {
+            repository.findAllByIdForUpdate(ids).forEach(p -> existing.put(p.getId(), p));
+        }
+
+        for (int i = from; i < to; i++) {
+            Product product = products.get(i);
+            if (product == null) {
+                results[i] = new BatchItemResult(i, null, Status.INVALID, "item nulo");
+            } else if (isNew[i]) {
+                product.setId(null);
+                persist(product);
+                results[i] = BatchItemResult.ok(i, product.getId(), Status.CREATED);
+            } else {
+                Product managed = existing.get(product.getId());
+                if (managed == null) {
+                    results[i] = new BatchItemResult(i, product.getId(), Status.NOT_FOUND, "produto não encontrado");
+                } else {
+                    managed.setName(product.getName());
+                    managed.setPrice(product.getPrice());
+                    managed.setUnit(product.getUnit());
+                    managed.setVersion(managed.getVersion() == null ? 1L : managed.getVersion() + 1);
+                    changeLog.recordUpsert(managed);
+                    results[i] = BatchItemResult.ok(i, product.getId(), Status.UPDATED);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove por id: por bloco, uma consulta para saber quais existem e um único DELETE ... IN.
+     */
+    public BatchResult deleteAll(List<UUID> ids) {
+        long start = System.nanoTime();
+        BatchItemResult[] results = new BatchItemResult[ids.size()];
+
+        forEachChunk(ids.size(), (from, to) -> {
+            try {
+                inTransaction(() -> deleteChunk(ids, from, to, results));
+            } catch (RuntimeException chunkFailure) {
+                logger.warn("Falha no bloco [{}, {}) do lote; refazendo item a item: {}", from, to, chunkFailure.getMessage());
+                for (int i = from; i < to; i++) {
+                    int index = i;
+                    try {
+                        inTransaction(() -> deleteChunk(ids, index, index + 1, results));
+                    } catch (RuntimeException ex) {
+                        results[index] = new BatchItemResult(index, ids.get(index), Status.FAILED, ex.getMessage());
+                    }
+                }
+            }
+        });
+
+        return finish("remoção", results, start);
+    }
+
+    private void deleteChunk(List<UUID> ids, int from, int to, BatchItemResult[] results) {
+        Set<UUID> found = new HashSet<>(repository.findExistingIds(ids.subList(from, to)));
+        if (!found.isEmpty()) {
+            repository.deleteAllByIdInBatch(found);
+            found.forEach(changeLog::recordDelete);
+        }
+        for (int i = from; i < to; i++) {
+            UUID id = ids.get(i);
+            results[i] = found.contains(id)
+                    ? BatchItemResult.ok(i, id, Status.DELETED)
+                    : new BatchItemResult(i, id, Status.NOT_FOUND, "produto não encontrado");
+        }
+    }
+
+    // Uma transação por bloco; depois dela (commit ou rollback) o contexto fica vazio
+    private void inTransaction(Runnable action) {
+        try {
+            tx.executeWithoutResult(status -> action.run());
+        } finally {
+            entityManager.clear();
+        }
+    }
+
+    private void persist(Product product) {
+        entityManager.persist(product);
+        changeLog.recordUpsert(product);
+    }
+
+    private void forEachChunk(int total, ChunkAction action) {
+        for (int from = 0; from < total; from += chunkSize) {
+            action.apply(from, Math.min(total, from + chunkSize));
+        }
+    }
+
+    private BatchResult finish(String operation, BatchItemResult[] results, long start) {
+        List<UUID> touched = new ArrayList<>();
+        for (BatchItemResult result : results) {
+            if (result.isSuccess()) {
+                touched.add(result.getId());
+            }
+        }
+        productService.evictAll(touched);
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        logger.info("Lote de {}: {} itens em {} ms ({} itens/s)", operation, results.length, elapsedMillis,
+                elapsedMillis == 0 ? results.length : results.length * 1000L / elapsedMillis);
+        return new BatchResult(Arrays.asList(results), elapsedMillis);
+    }
+
+    @FunctionalInterface
+    private interface ChunkAction {
+        void apply(int from, int to);
+    }
+}
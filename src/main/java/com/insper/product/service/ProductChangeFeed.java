@@ -0,0 +1,235 @@
+package com.insper.product.service;
+
+import com.insper.product.model.ProductChange;
+import com.insper.product.model.ProductChangesPage;
+import com.insper.product.model.ProductFeedHead;
+import com.insper.product.repository.ProductChangeRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Leitura do change feed: consultas por {@code since} e assinaturas SSE.
+ *
+ * Um único poller por instância lê os eventos novos e os distribui a todos os
+ * assinantes, então o custo no banco não cresce com o número de conexões SSE. O
+ * mesmo poller invalida o cache local para escritas feitas em outras instâncias.
+ */
+@Service
+public class ProductChangeFeed {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductChangeFeed.class);
+
+    @Autowired
+    private ProductChangeRepository repository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${product.changes.poll-batch:1000}")
+    private int pollBatch;
+
+    @Value("${product.changes.sse-timeout:30m}")
+    private Duration sseTimeout;
+
+    @Value("${product.changes.heartbeat:15s}")
+    private Duration heartbeat;
+
+    @Value("${product.changes.retention:7d}")
+    private Duration retention;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private final List<Consumer<List<ProductChange>>> listeners = new CopyOnWriteArrayList<>();
+
+    // Último seq lido pelo poller; só ele altera
+    private volatile long lastSeen;
+
+    @PostConstruct
+    void init() {
+        Long max = repository.findMaxSeq();
+        lastSeen = max == null ? 0 : max;
+        // Modo snapshot: o que foi confirmado entre a carga do snapshot e este ponto também é aplicado
+        long snapshotSeq = productService.snapshotSeq();
+        if (snapshotSeq >= 0) {
+            lastSeen = Math.min(lastSeen, snapshotSeq);
+        }
+        Gauge.builder("products.changes.subscribers", subscribers, List::size).register(meterRegistry);
+    }
+
+    /**
+     * Recebe, em ordem de seq, cada lote de eventos novos lido pelo poller, de todas as
+     * instâncias (inclusive desta, já repassados pelo ProductChangeLog no commit).
+     */
+    public void addListener(Consumer<List<ProductChange>> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Eventos com seq maior que {@code since}, em ordem.
+     *
+     * @throws ChangesExpiredException se eventos depois de {@code since} já foram
+     *         removidos pela retenção; o consumidor precisa ressincronizar por GET /products
+     */
+    @Transactional(readOnly = true)
+    public ProductChangesPage changesSince(long since, int limit) {
+        if (since < 0) {
+            throw new IllegalArgumentException("since não pode ser negativo");
+        }
+        List<ProductChange> changes = repository.findBySeqGreaterThanOrderBySeqAsc(since, PageRequest.of(0, limit + 1));
+        checkRetained(since, changes);
+
+        boolean hasMore = changes.size() > limit;
+        if (hasMore) {
+            changes = changes.subList(0, limit);
+        }
+        long nextSince = changes.isEmpty() ? since : changes.get(changes.size() - 1).getSeq();
+        return new ProductChangesPage(changes, nextSince, hasMore);
+    }
+
+    /**
+     * Assina os eventos depois de {@code since}. Os atrasados são enviados pelo próprio
+     * poller, em blocos, antes dos novos.
+     */
+    @Transactional(readOnly = true)
+    public SseEmitter subscribe(long since) {
+        if (since < 0) {
+            throw new IllegalArgumentException("since não pode ser negativo");
+        }
+        checkRetained(since, repository.findBySeqGreaterThanOrderBySeqAsc(since, PageRequest.of(0, 1)));
+
+        SseEmitter emitter = new SseEmitter(sseTimeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter, since);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    // Os seqs não têm buracos: se o primeiro evento não é since + 1, o intervalo foi apagado.
+    // Vale também para since = 0: depois da primeira limpeza, o histórico desde o início não
+    // existe mais, e um consumidor novo parte do X-Feed-Seq de GET /products
+    private void checkRetained(long since, List<ProductChange> changes) {
+        boolean expired = changes.isEmpty()
+                ? since < headSeq()
+                : changes.get(0).getSeq() > since + 1;
+        if (expired) {
+            throw new ChangesExpiredException(since);
+        }
+    }
+
+    private long headSeq() {
+        ProductFeedHead head = entityManager.find(ProductFeedHead.class, ProductFeedHead.ID);
+        return head == null ? 0 : head.getSeq();
+    }
+
+    @Scheduled(fixedDelayString = "${product.changes.poll-interval-ms:1000}")
+    public void poll() {
+        List<ProductChange> fresh = repository.findBySeqGreaterThanOrderBySeqAsc(lastSeen, PageRequest.of(0, pollBatch));
+        if (!fresh.isEmpty()) {
+            productService.applyFeedChanges(fresh);
+            for (Consumer<List<ProductChange>> listener : listeners) {
+                listener.accept(fresh);
+            }
+            lastSeen = fresh.get(fresh.size() - 1).getSeq();
+        }
+
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            try {
+                if (subscriber.cursor < lastSeen) {
+                    List<ProductChange> pending = subscriber.cursor + 1 >= firstSeq(fresh)
+                            ? fresh
+                            : repository.findBySeqGreaterThanOrderBySeqAsc(subscriber.cursor, PageRequest.of(0, pollBatch));
+                    subscriber.send(pending);
+                } else if (now - subscriber.lastSentNanos > heartbeat.toNanos()) {
+                    subscriber.heartbeat();
+                }
+            } catch (IOException | IllegalStateException ex) {
+                // Cliente desconectou
+                subscribers.remove(subscriber);
+                subscriber.emitter.completeWithError(ex);
+            }
+        }
+    }
+
+    private static long firstSeq(List<ProductChange> changes) {
+        return changes.isEmpty() ? Long.MAX_VALUE : changes.get(0).getSeq();
+    }
+
+    /**
+     * Remove os eventos mais antigos que {@code product.changes.retention}.
+     */
+    @Scheduled(fixedDelayString = "${product.changes.cleanup-interval-ms:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        int removed = repository.deleteCreatedBefore(Instant.now().minus(retention));
+        if (removed > 0) {
+            logger.info("Change feed: {} eventos removidos pela retenção de {}", removed, retention);
+        }
+    }
+
+    private static class Subscriber {
+        private final SseEmitter emitter;
+        private long cursor;
+        private long lastSentNanos = System.nanoTime();
+
+        Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+
+        void send(List<ProductChange> changes) throws IOException {
+            for (ProductChange change : changes) {
+                if (change.getSeq() <= cursor) {
+                    continue;
+                }
+                emitter.send(SseEmitter.event()
+                                       .id(Long.toString(change.getSeq()))
+                                       .name("change")
+                                       .data(change, MediaType.APPLICATION_JSON));
+                cursor = change.getSeq();
+            }
+            lastSentNanos = System.nanoTime();
+        }
+
+        void heartbeat() throws IOException {
+            emitter.send(SseEmitter.event().comment("heartbeat"));
+            lastSentNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * O intervalo pedido já saiu da retenção.
+     */
+    public static class ChangesExpiredException extends RuntimeException {
+        public ChangesExpiredException(long since) {
+            super("Eventos depois de " + since + " já foram removidos; ressincronize por GET /products");
+        }
+    }
+}
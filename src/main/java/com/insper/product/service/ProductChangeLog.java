@@ -0,0 +1,135 @@
+package com.insper.product.service;
+
+import com.insper.product.model.Product;
+import com.insper.product.model.ProductChange;
+import com.insper.product.model.ProductFeedHead;
+import com.insper.product.repository.ProductChangeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Grava os eventos do change feed na transação da escrita (outbox): ou o produto e o
+ * evento são confirmados juntos, ou nenhum dos dois.
+ *
+ * Os eventos ficam pendentes até o beforeCommit; só então a linha de product_feed_head
+ * é travada e os seqs atribuídos. Assim a ordem dos seqs é a ordem de commit e não há
+ * buracos, e a trava dura apenas o commit (não a transação inteira).
+ */
+@Component
+public class ProductChangeLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductChangeLog.class);
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ProductChangeRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Consumer<List<ProductChange>>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Recebe os eventos de cada transação desta instância logo depois do commit, já com
+     * os seqs atribuídos (os das demais instâncias chegam pelo poller do ProductChangeFeed).
+     */
+    public void addListener(Consumer<List<ProductChange>> listener) {
+        listeners.add(listener);
+    }
+
+    @PostConstruct
+    void initHead() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        try {
+            tx.executeWithoutResult(status -> {
+                if (entityManager.find(ProductFeedHead.class, ProductFeedHead.ID) == null) {
+                    Long max = repository.findMaxSeq();
+                    entityManager.persist(new ProductFeedHead(ProductFeedHead.ID, max == null ? 0 : max));
+                }
+            });
+        } catch (DataIntegrityViolationException alreadyCreated) {
+            // Outra instância criou a linha ao mesmo tempo
+        }
+    }
+
+    public void recordUpsert(Product product) {
+        record(ProductChange.upsert(product));
+    }
+
+    public void recordDelete(UUID productId) {
+        record(ProductChange.delete(productId));
+    }
+
+    private void record(ProductChange change) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Eventos do change feed só podem ser gravados dentro de uma transação");
+        }
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new Pending();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.changes.add(change);
+    }
+
+    private void publish(List<ProductChange> changes) {
+        ProductFeedHead head = entityManager.find(ProductFeedHead.class, ProductFeedHead.ID, LockModeType.PESSIMISTIC_WRITE);
+        if (head == null) {
+            throw new IllegalStateException("product_feed_head não inicializada");
+        }
+        long seq = head.getSeq();
+        Instant now = Instant.now();
+        for (ProductChange change : changes) {
+            change.setSeq(++seq);
+            change.setCreatedAt(now);
+            entityManager.persist(change);
+        }
+        head.setSeq(seq);
+    }
+
+    private class Pending implements TransactionSynchronization {
+        private final List<ProductChange> changes = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            publish(changes);
+        }
+
+        // A escrita já foi confirmada: uma falha aqui não pode virar erro da requisição
+        @Override
+        public void afterCommit() {
+            for (Consumer<List<ProductChange>> listener : listeners) {
+                try {
+                    listener.accept(changes);
+                } catch (RuntimeException e) {
+                    logger.warn("Falha ao repassar eventos do change feed", e);
+                }
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ProductChangeLog.this);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.insper.product.service;
+
+import com.insper.product.model.Product;
+import com.insper.product.model.ProductSort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Cursor opaco da paginação keyset: guarda o valor da chave de ordenação e o id
+ * do último produto entregue, codificados em Base64 URL-safe.
+ */
+final class ProductCursor {
+
+    private static final char SEPARATOR = '|';
+    private static final int UUID_LENGTH = 36;
+
+    private final String sortValue;
+    private final UUID id;
+
+    private ProductCursor(String sortValue, UUID id) {
+        this.sortValue = sortValue;
+        this.id = id;
+    }
+
+    String sortValue() { return sortValue; }
+
+    UUID id() { return id; }
+
+    double priceValue() {
+        try {
+            return Double.parseDouble(sortValue);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+
+    static String encode(ProductSort sort, Product last) {
+        String sortValue;
+        switch (sort) {
+            case NAME:
+                sortValue = last.getName() == null ? "" : last.getName();
+                break;
+            case PRICE:
+                sortValue = Double.toString(last.getPrice() == null ? 0.0 : last.getPrice());
+                break;
+            default:
+                sortValue = "";
+        }
+        String raw = sortValue + SEPARATOR + last.getId();
+        return Base64.getUrlEncoder().withoutPadding()
+                     .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * O id tem tamanho fixo e fica no fim, então o separador é procurado pela direita:
+     * o valor da chave (ex.: o nome) pode conter o próprio separador.
+     */
+    static ProductCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.length() - UUID_LENGTH - 1;
+            if (sep < 0 || raw.charAt(sep) != SEPARATOR) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            return new ProductCursor(raw.substring(0, sep), UUID.fromString(raw.substring(sep + 1)));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+}
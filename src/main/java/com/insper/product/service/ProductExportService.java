@@ -0,0 +1,63 @@
+package com.insper.product.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insper.product.repository.ProductCatalogReader;
+import com.insper.product.transfer.ProductFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+
+/**
+ * Exportação do catálogo em CSV ou NDJSON (GET /products/export ou --export=): cada linha
+ * do cursor JDBC é escrita na saída assim que chega do banco, sem montar a tabela em memória.
+ */
+@Service
+public class ProductExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductExportService.class);
+
+    @Autowired
+    private ProductCatalogReader catalogReader;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Value("${product.import.progress-interval:5s}")
+    private Duration progressInterval;
+
+    /** Escreve o catálogo em {@code out}, sem fechá-lo; devolve quantos produtos foram escritos. */
+    public long export(ProductFormat format, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        long[] lastLog = {start};
+        long count;
+        try (ProductFormat.RecordWriter writer = format.writer(out, mapper)) {
+            long[] written = {0};
+            catalogReader.forEach(product -> {
+                try {
+                    writer.write(product);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                written[0]++;
+                long now = System.nanoTime();
+                if (now - lastLog[0] >= progressInterval.toNanos()) {
+                    lastLog[0] = now;
+                    logger.info("Exportação em {}: {} produtos", format.getExtension(), written[0]);
+                }
+            });
+            count = written[0];
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        logger.info("Exportação em {} concluída: {} produtos em {} ms",
+                format.getExtension(), count, (System.nanoTime() - start) / 1_000_000);
+        return count;
+    }
+}
@@ -0,0 +1,334 @@
+package com.insper.product.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insper.product.model.ImportResult;
+import com.insper.product.model.Product;
+import com.insper.product.repository.ProductBulkWriter;
+import com.insper.product.repository.ProductRepository;
+import com.insper.product.transfer.ChunkedInput;
+import com.insper.product.transfer.ProductFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Importação do catálogo em CSV ou NDJSON (ver ProductFormat), de arquivo (--import=) ou
+ * do corpo de POST /products/import.
+ *
+ * A entrada é dividida em blocos de linhas inteiras (ChunkedInput; arquivos são mapeados
+ * em memória) e cada bloco é interpretado e gravado por uma thread do pool, em lotes de
+ * {@code product.batch.chunk-size} linhas, um por transação: INSERT/UPDATE por JDBC em
+ * lote e os eventos do change feed na mesma transação. Linhas com id existente atualizam
+ * o produto; as demais o criam, mantendo o id da linha (sem id, um novo é gerado).
+ *
+ * No máximo 2 blocos por thread ficam em memória de cada vez. Se um lote falhar, ele é
+ * refeito linha a linha, como em ProductBatchService; linhas inválidas não param a importação.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private ProductBulkWriter bulkWriter;
+
+    @Autowired
+    private ProductChangeLog changeLog;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${product.import.chunk-size:8MB}")
+    private DataSize chunkSize;
+
+    // Threads que interpretam e gravam os blocos (0 = número de processadores)
+    @Value("${product.import.parallelism:0}")
+    private int parallelism;
+
+    @Value("${product.import.progress-interval:5s}")
+    private Duration progressInterval;
+
+    // Erros guardados no resultado (os demais só são contados)
+    @Value("${product.import.max-errors:100}")
+    private int maxErrors;
+
+    @Value("${product.batch.chunk-size:500}")
+    private int batchSize;
+
+    private TransactionTemplate tx;
+
+    @PostConstruct
+    void init() {
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    public ImportResult importFile(Path file, ProductFormat format) throws IOException {
+        try (ChunkedInput input = ChunkedInput.of(file, (int) chunkSize.toBytes())) {
+            return run(input, format, file.toString());
+        }
+    }
+
+    public ImportResult importStream(InputStream in, ProductFormat format) throws IOException {
+        try (ChunkedInput input = ChunkedInput.of(in, (int) chunkSize.toBytes())) {
+            return run(input, format, "requisição");
+        }
+    }
+
+    private ImportResult run(ChunkedInput input, ProductFormat format, String source) throws IOException {
+        Progress progress = new Progress(source, input.size());
+        String header = null;
+        if (format.hasHeader()) {
+            header = input.readHeader();
+            if (header == null) {
+                return progress.finish(0);
+            }
+            // Cabeçalho inválido recusa a importação inteira, antes de gravar qualquer coisa
+            format.parser(header, mapper);
+        }
+        String columns = header;
+
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        Semaphore inFlight = new Semaphore(threads * 2);
+        List<Future<?>> tasks = new ArrayList<>();
+        try {
+            ChunkedInput.Chunk chunk;
+            while ((chunk = input.next()) != null) {
+                inFlight.acquire();
+                ChunkedInput.Chunk current = chunk;
+                tasks.add(pool.submit(() -> {
+                    try {
+                        importChunk(current, format.parser(columns, mapper), progress);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Importação interrompida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falha na importação de " + source, e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return progress.finish(input.position());
+    }
+
+    private void importChunk(ChunkedInput.Chunk chunk, ProductFormat.RecordParser parser, Progress progress) {
+        ByteBuffer data = chunk.getData();
+        int limit = data.limit();
+        byte[] line = new byte[256];
+        List<Product> batch = new ArrayList<>(batchSize);
+        int start = 0;
+        while (start < limit) {
+            int end = start;
+            while (end < limit && data.get(end) != '\n') {
+                end++;
+            }
+            int length = end > start && data.get(end - 1) == '\r' ? end - start - 1 : end - start;
+            if (length > 0) {
+                if (line.length < length) {
+                    line = new byte[Math.max(length, line.length * 2)];
+                }
+                data.get(start, line, 0, length);
+                try {
+                    batch.add(parser.parse(line, length));
+                } catch (IOException | RuntimeException e) {
+                    progress.failed("posição " + (chunk.getOffset() + start) + ": " + e.getMessage());
+                }
+                if (batch.size() == batchSize) {
+                    write(batch, progress);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            start = end + 1;
+        }
+        write(batch, progress);
+        progress.read(limit);
+    }
+
+    private void write(List<Product> products, Progress progress) {
+        if (products.isEmpty()) {
+            return;
+        }
+        try {
+            int[] counts = tx.execute(status -> upsert(products));
+            progress.written(counts[0], counts[1]);
+        } catch (RuntimeException batchFailure) {
+            logger.warn("Falha num lote de {} produtos da importação; refazendo item a item: {}",
+                    products.size(), batchFailure.getMessage());
+            for (Product product : products) {
+                try {
+                    int[] counts = tx.execute(status -> upsert(List.of(product)));
+                    progress.written(counts[0], counts[1]);
+                } catch (RuntimeException e) {
+                    progress.failed("produto " + product.getId() + ": " + e.getMessage());
+                }
+            }
+        }
+        List<UUID> ids = new ArrayList<>(products.size());
+        products.forEach(product -> ids.add(product.getId()));
+        productService.evictAll(ids);
+    }
+
+    // Devolve {criados, atualizados}
+    private int[] upsert(List<Product> products) {
+        Set<UUID> ids = new HashSet<>();
+        for (Product product : products) {
+            if (product.getId() != null) {
+                ids.add(product.getId());
+            }
+        }
+        Set<UUID> existing = new HashSet<>();
+        if (!ids.isEmpty()) {
+            existing.addAll(repository.findExistingIds(ids));
+        }
+
+        List<Product> inserts = new ArrayList<>();
+        List<Product> updates = new ArrayList<>();
+        for (Product product : products) {
+            if (product.getId() != null && existing.contains(product.getId())) {
+                // Preenchida depois do UPDATE, com a versão que ele gerou
+                product.setVersion(null);
+                updates.add(product);
+            } else {
+                if (product.getId() == null) {
+                    product.setId(UUID.randomUUID());
+                }
+                product.setVersion(0L);
+                inserts.add(product);
+            }
+            // O mesmo id repetido no lote vira atualização do que acabou de ser inserido
+            existing.add(product.getId());
+        }
+        bulkWriter.insertAll(inserts);
+        bulkWriter.updateAll(updates);
+
+        // O UPDATE incrementa a versão no banco; o evento leva a que ele gerou. Um id que
+        // sumiu (DELETE concorrente) fica sem linha e sem evento
+        Map<UUID, Long> versions = new HashMap<>();
+        if (!updates.isEmpty()) {
+            Set<UUID> updatedIds = new HashSet<>();
+            updates.forEach(product -> updatedIds.add(product.getId()));
+            for (Object[] row : repository.findVersions(updatedIds)) {
+                versions.put((UUID) row[0], (Long) row[1]);
+            }
+        }
+        for (Product product : products) {
+            if (product.getVersion() == null) {
+                Long version = versions.get(product.getId());
+                if (version == null) {
+                    continue;
+                }
+                product.setVersion(version);
+            }
+            changeLog.recordUpsert(product);
+        }
+        return new int[] {inserts.size(), updates.size()};
+    }
+
+    /**
+     * Contadores de uma importação, compartilhados pelas threads, e o log de progresso
+     * (no máximo um a cada product.import.progress-interval).
+     */
+    private final class Progress {
+        private final String source;
+        private final long total;
+        private final long start = System.nanoTime();
+        private final AtomicLong created = new AtomicLong();
+        private final AtomicLong updated = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicLong lastLog = new AtomicLong(start);
+        private final List<String> errors = new ArrayList<>();
+
+        Progress(String source, long total) {
+            this.source = source;
+            this.total = total;
+        }
+
+        void failed(String error) {
+            failed.incrementAndGet();
+            synchronized (errors) {
+                if (errors.size() < maxErrors) {
+                    errors.add(error);
+                }
+            }
+        }
+
+        void written(int createdCount, int updatedCount) {
+            created.addAndGet(createdCount);
+            updated.addAndGet(updatedCount);
+        }
+
+        void read(long count) {
+            bytes.addAndGet(count);
+            long now = System.nanoTime();
+            long last = lastLog.get();
+            if (now - last >= progressInterval.toNanos() && lastLog.compareAndSet(last, now)) {
+                log(now);
+            }
+        }
+
+        private void log(long now) {
+            long products = created.get() + updated.get();
+            long seconds = Math.max(1, (now - start) / 1_000_000_000);
+            long megabytes = bytes.get() >> 20;
+            if (total > 0) {
+                logger.info("Importação de {}: {} de {} MB ({}%), {} produtos ({}/s), {} com erro", source,
+                        megabytes, total >> 20, bytes.get() * 100 / total, products, products / seconds, failed.get());
+            } else {
+                logger.info("Importação de {}: {} MB, {} produtos ({}/s), {} com erro", source,
+                        megabytes, products, products / seconds, failed.get());
+            }
+        }
+
+        ImportResult finish(long totalBytes) {
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            logger.info("Importação de {} concluída: {} criados, {} atualizados, {} com erro, {} MB em {} ms",
+                    source, created.get(), updated.get(), failed.get(), totalBytes >> 20, elapsedMillis);
+            synchronized (errors) {
+                return new ImportResult(created.get(), updated.get(), failed.get(), totalBytes, elapsedMillis,
+                                        new ArrayList<>(errors));
+            }
+        }
+    }
+}
@@ -1,32 +1,563 @@
 package com.insper.product.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.insper.product.datasource.PrimaryReads;
 import com.insper.product.model.Product;
+import com.insper.product.model.ProductCatalog;
+import com.insper.product.model.ProductChange;
+import com.insper.product.model.ProductFeedHead;
+import com.insper.product.model.ProductLookupResult;
+import com.insper.product.model.ProductPage;
+import com.insper.product.model.ProductSearchQuery;
+import com.insper.product.model.ProductSearchResult;
+import com.insper.product.model.ProductSort;
+import com.insper.product.model.ProductSummary;
+import com.insper.product.repository.ProductCatalogReader;
+import com.insper.product.repository.ProductChangeRepository;
 import com.insper.product.repository.ProductRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class ProductService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductService.class);
+
+    // Faixas de id (primeiro dígito hexadecimal) carregadas em paralelo no modo snapshot
+    private static final int SNAPSHOT_LOAD_RANGES = 16;
+
     @Autowired
     private ProductRepository repository;
 
+    @Autowired
+    private ProductCatalogReader catalogReader;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ProductChangeLog changeLog;
+
+    @Autowired
+    private ProductChangeRepository changeRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${product.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    @Value("${product.cache.ttl:5m}")
+    private Duration cacheTtl;
+
+    // cache: caches com TTL na frente do banco; snapshot: o catálogo inteiro em memória,
+    // e findAll/findById nunca consultam o banco
+    @Value("${product.catalog.mode:cache}")
+    private String catalogMode;
+
+    // Threads da carga inicial do snapshot (0 = número de processadores, até 16)
+    @Value("${product.catalog.load-parallelism:0}")
+    private int loadParallelism;
+
+    // Cache read-through (W-TinyLFU + TTL). Só guarda produtos existentes: ids
+    // inexistentes sempre consultam o banco, para que um POST apareça imediatamente.
+    private Cache<UUID, Product> byId;
+
+    // O catálogo completo (com a ETag) ocupa uma única entrada, invalidada a cada escrita
+    private Cache<String, ProductCatalog> catalog;
+
+    private static final String CATALOG_KEY = "all";
+
+    // Ids pedidos a POST /products/lookup que ainda estão sendo buscados no banco
+    private final CoalescingLoader<UUID, Product> lookups = new CoalescingLoader<>();
+
+    // Incrementado a cada invalidação: uma busca que cruzou uma escrita não fica em cache
+    private final AtomicLong writeGeneration = new AtomicLong();
+
+    // Modo snapshot: lido sem trava; trocado inteiro, com cópia só dos shards alterados
+    private volatile ProductSnapshot snapshot;
+
+    // Serializa as atualizações do snapshot (as leituras não passam por aqui)
+    private final Object snapshotLock = new Object();
+
+    private TransactionTemplate snapshotTx;
+
+    // Modo snapshot, com snapshotLock: seq do último evento aplicado de cada produto acima do
+    // feedSeq do snapshot (até ele, os eventos foram aplicados em ordem: carga, reaplicação e poller). Os eventos desta instância chegam no commit, sem ordem entre transações
+    // concorrentes, e de novo pelo poller; um seq igual ou mais antigo é descartado
+    private final Map<UUID, Long> appliedAhead = new HashMap<>();
+
+    @PostConstruct
+    void initCaches() {
+        byId = Caffeine.newBuilder()
+                       .maximumSize(cacheMaxSize)
+                       .expireAfterWrite(cacheTtl)
+                       .recordStats()
+                       .build();
+        catalog = Caffeine.newBuilder()
+                          .maximumSize(1)
+                          .expireAfterWrite(cacheTtl)
+                          .recordStats()
+                          .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "products.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, catalog, "products.catalog");
+        Gauge.builder("products.lookup.in.flight", lookups, CoalescingLoader::inFlight)
+             .description("Ids sendo buscados por POST /products/lookup, compartilhados entre buscas concorrentes")
+             .register(meterRegistry);
+
+        if ("snapshot".equalsIgnoreCase(catalogMode)) {
+            loadSnapshot();
+            changeLog.addListener(changes -> applyToSnapshot(changes, false));
+        } else if (!"cache".equalsIgnoreCase(catalogMode)) {
+            throw new IllegalStateException("product.catalog.mode inválido: " + catalogMode + " (use cache ou snapshot)");
+        }
+    }
+
     public List<Product> findAll() {
-        return repository.findAll();
+        return findCatalog().getProducts();
+    }
+
+    /**
+     * Catálogo completo com a sua ETag; enquanto estiver em cache, validar um
+     * If-None-Match não consulta o banco. Carregado por JDBC direto para colunas,
+     * sem entidades gerenciadas.
+     */
+    public ProductCatalog findCatalog() {
+        ProductSnapshot current = snapshot;
+        if (current != null) {
+            return current.catalog();
+        }
+        return catalog.get(CATALOG_KEY, key -> PrimaryReads.call(catalogReader::loadAll));
+    }
+
+    /**
+     * Busca uma página ordenada por {@code sort}, começando depois do cursor {@code after}
+     * (ou do início, se nulo). Lança IllegalArgumentException se o cursor for inválido.
+     */
+    @Transactional(readOnly = true)
+    public ProductPage findPage(ProductSort sort, String after, int size) {
+        // Busca um item a mais só para saber se existe próxima página
+        Pageable limit = PageRequest.of(0, size + 1);
+        ProductCursor cursor = after == null ? null : ProductCursor.decode(after);
+
+        List<Product> items;
+        switch (sort) {
+            case NAME:
+                items = cursor == null
+                        ? repository.findFirstPageOrderByName(limit)
+                        : repository.findPageOrderByNameAfter(cursor.sortValue(), cursor.id(), limit);
+                break;
+            case PRICE:
+                items = cursor == null
+                        ? repository.findFirstPageOrderByPrice(limit)
+                        : repository.findPageOrderByPriceAfter(cursor.priceValue(), cursor.id(), limit);
+                break;
+            default:
+                items = cursor == null
+                        ? repository.findByOrderByIdAsc(limit)
+                        : repository.findByIdGreaterThanOrderByIdAsc(cursor.id(), limit);
+        }
+
+        if (items.size() <= size) {
+            return new ProductPage(items, null);
+        }
+        List<Product> page = items.subList(0, size);
+        return new ProductPage(page, ProductCursor.encode(sort, page.get(size - 1)));
+    }
+
+    /**
+     * Busca por nome (prefixo ou trecho, sem diferenciar maiúsculas), faixa de preço e unidade.
+     */
+    @Transactional(readOnly = true)
+    public ProductSearchResult search(ProductSearchQuery query) {
+        if (query.getMinPrice() != null && query.getMaxPrice() != null
+                && query.getMinPrice() > query.getMaxPrice()) {
+            throw new IllegalArgumentException("minPrice não pode ser maior que maxPrice");
+        }
+        List<ProductSummary> items = repository.search(query);
+        boolean hasNext = items.size() > query.getSize();
+        if (hasNext) {
+            items = items.subList(0, query.getSize());
+        }
+        return new ProductSearchResult(items, query.getPage(), query.getSize(), hasNext);
+    }
+
+    /**
+     * Percorre o catálogo inteiro por um cursor JDBC, entregando um produto por vez.
+     * Cada entidade é desanexada após o uso para que a memória fique constante.
+     */
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<Product> consumer) {
+        try (Stream<Product> products = repository.streamAllBy()) {
+            products.forEach(product -> {
+                consumer.accept(product);
+                entityManager.detach(product);
+            });
+        }
     }
 
     public Optional<Product> findById(UUID id) {
-        return repository.findById(id);
+        ProductSnapshot current = snapshot;
+        if (current != null) {
+            return Optional.ofNullable(current.find(id));
+        }
+        // Da primária (PrimaryReads): uma réplica atrasada deixaria a versão antiga em cache até o TTL
+        return Optional.ofNullable(byId.get(id, key -> PrimaryReads.call(() -> repository.findById(key).orElse(null))));
+    }
+
+    /**
+     * Busca vários produtos de uma vez: os que estão em cache (ou no snapshot) saem da
+     * memória, e o resto vem de uma única consulta IN. Buscas concorrentes que pedem os
+     * mesmos ids compartilham a consulta em vez de repeti-la.
+     */
+    public ProductLookupResult lookup(Collection<UUID> ids) {
+        Set<UUID> distinct = new LinkedHashSet<>(ids);
+        Map<UUID, Product> found;
+        ProductSnapshot current = snapshot;
+        if (current != null) {
+            found = new HashMap<>();
+            for (UUID id : distinct) {
+                Product product = current.find(id);
+                if (product != null) {
+                    found.put(id, product);
+                }
+            }
+        } else {
+            found = new HashMap<>(byId.getAllPresent(distinct));
+            if (found.size() < distinct.size()) {
+                List<UUID> toLoad = new ArrayList<>(distinct.size() - found.size());
+                for (UUID id : distinct) {
+                    if (!found.containsKey(id)) {
+                        toLoad.add(id);
+                    }
+                }
+                found.putAll(lookups.loadAll(toLoad, this::loadAllById));
+            }
+        }
+
+        List<Product> products = new ArrayList<>(found.size());
+        List<UUID> missing = new ArrayList<>();
+        for (UUID id : distinct) {
+            Product product = found.get(id);
+            if (product != null) {
+                products.add(product);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new ProductLookupResult(products, missing);
+    }
+
+    /**
+     * Consulta IN (até 1000 ids por consulta) que alimenta o cache. Se uma escrita for
+     * confirmada durante a consulta, o que foi lido pode estar antigo: sai do cache de novo.
+     */
+    private Map<UUID, Product> loadAllById(Set<UUID> ids) {
+        long generation = writeGeneration.get();
+        List<UUID> list = new ArrayList<>(ids);
+        Map<UUID, Product> loaded = new HashMap<>();
+        PrimaryReads.call(() -> {
+            for (int from = 0; from < list.size(); from += 1000) {
+                repository.findAllById(list.subList(from, Math.min(list.size(), from + 1000)))
+                          .forEach(product -> loaded.put(product.getId(), product));
+            }
+            return loaded;
+        });
+        byId.putAll(loaded);
+        if (writeGeneration.get() != generation) {
+            byId.invalidateAll(loaded.keySet());
+        }
+        return loaded;
     }
 
+    @Transactional
     public Product save(Product product) {
-        return repository.save(product);
+        Product saved = repository.save(product);
+        changeLog.recordUpsert(saved);
+        afterCommit(() -> evict(saved.getId()));
+        return saved;
+    }
+
+    /**
+     * Atualiza com um único UPDATE. Se {@code product.getVersion()} vier preenchida, a
+     * atualização só acontece se a versão no banco for a mesma (concorrência otimista).
+     *
+     * @return o produto atualizado, ou vazio se o id não existir
+     * @throws OptimisticLockingFailureException se a versão informada estiver desatualizada
+     */
+    @Transactional
+    public Optional<Product> update(UUID id, Product product) {
+        Long expected = product.getVersion();
+        int updated = expected == null
+                ? repository.updateFields(id, product.getName(), product.getPrice(), product.getUnit())
+                : repository.updateFieldsIfVersion(id, product.getName(), product.getPrice(), product.getUnit(), expected);
+
+        if (updated == 0) {
+            // Só no caminho de falha: distingue "não existe" (404) de "versão antiga" (409)
+            if (expected != null && repository.existsById(id)) {
+                throw new OptimisticLockingFailureException("Produto " + id + " foi alterado por outra requisição");
+            }
+            return Optional.empty();
+        }
+
+        product.setId(id);
+        // Sem versão esperada o novo valor só é conhecido no banco: relido pela chave primária,
+        // para que a resposta, a ETag e o evento do change feed tenham a versão gravada
+        product.setVersion(expected == null ? repository.findVersionById(id) : expected + 1);
+        changeLog.recordUpsert(product);
+        afterCommit(() -> evict(id));
+        return Optional.of(product);
+    }
+
+    /**
+     * Remove com um único DELETE.
+     *
+     * @return false se o produto não existia
+     */
+    @Transactional
+    public boolean deleteById(UUID id) {
+        if (repository.deleteProductById(id) == 0) {
+            return false;
+        }
+        changeLog.recordDelete(id);
+        afterCommit(() -> evict(id));
+        return true;
+    }
+
+    /**
+     * Invalida depois da escrita já confirmada no banco. Uma leitura concorrente que
+     * carregou o valor antigo termina antes da remoção (o cache é atômico por chave).
+     */
+    private void evict(UUID id) {
+        writeGeneration.incrementAndGet();
+        byId.invalidate(id);
+        catalog.invalidateAll();
+    }
+
+    /**
+     * Eventos novos lidos pelo poller do change feed (de todas as instâncias), em ordem de
+     * seq. No modo snapshot, os desta instância já aplicados no commit são descartados.
+     */
+    void applyFeedChanges(List<ProductChange> changes) {
+        if (snapshot != null) {
+            applyToSnapshot(changes, true);
+        }
+        Set<UUID> ids = new LinkedHashSet<>();
+        changes.forEach(change -> ids.add(change.getProductId()));
+        evictAll(ids);
+    }
+
+    /**
+     * Seq do change feed que o snapshot já reflete, ou -1 fora do modo snapshot. O poller
+     * começa daqui, para não perder escritas confirmadas entre a carga e a sua subida.
+     */
+    long snapshotSeq() {
+        ProductSnapshot current = snapshot;
+        return current == null ? -1 : current.feedSeq();
+    }
+
+    void evictAll(Iterable<UUID> ids) {
+        writeGeneration.incrementAndGet();
+        byId.invalidateAll(ids);
+        catalog.invalidateAll();
+        // Cache de segundo nível (se ligado): escritas de outras instâncias não passaram por este Hibernate
+        org.hibernate.Cache secondLevel = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCache();
+        ids.forEach(id -> secondLevel.evictEntityData(Product.class, id));
+        secondLevel.evictDefaultQueryRegion();
+    }
+
+    /**
+     * Carga inicial do modo snapshot: 16 faixas de id lidas em paralelo, cada uma
+     * preenchendo os seus próprios shards. Se a soma não bater com count() (ordem de
+     * UUID diferente no banco, ou escritas durante a carga), recarrega numa consulta só.
+     *
+     * Escritas confirmadas durante a carga podem ter ficado de fora de uma faixa já lida
+     * sem mudar count() (um UPDATE): o seq do change feed é guardado antes da carga e os
+     * eventos depois dele são reaplicados no snapshot carregado.
+     */
+    private void loadSnapshot() {
+        long start = System.nanoTime();
+        // Sem read-only: com réplicas de leitura, o snapshot é sempre lido da primária, e uma
+        // réplica atrasada não devolve o estado de antes da escrita que acabou de ser confirmada
+        snapshotTx = new TransactionTemplate(transactionManager);
+        snapshotTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        // A linha de product_feed_head, e não o maior seq em product_change: eventos antigos podem ter sido apagados
+        long headBefore = snapshotTx.execute(status -> {
+            ProductFeedHead head = entityManager.find(ProductFeedHead.class, ProductFeedHead.ID);
+            return head == null ? 0L : head.getSeq();
+        });
+        int threads = loadParallelism > 0 ? loadParallelism
+                : Math.min(SNAPSHOT_LOAD_RANGES, Runtime.getRuntime().availableProcessors());
+        ProductSnapshot.Loader loader = new ProductSnapshot.Loader();
+        long loaded = loadRangesInParallel(loader, threads);
+        long expected = snapshotTx.execute(status -> repository.count());
+        if (loaded != expected) {
+            logger.warn("Snapshot: carga em faixas leu {} de {} produtos; recarregando numa consulta só", loaded, expected);
+            loader = new ProductSnapshot.Loader();
+            addRows(loader, repository.findAllRows());
+        }
+        snapshot = loader.build(headBefore);
+        replayFeed();
+        ProductSnapshot loadedSnapshot = snapshot;
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        long bytesPerProduct = loadedSnapshot.size() == 0 ? 0 : loadedSnapshot.estimatedBytes() / loadedSnapshot.size();
+        logger.info("Snapshot do catálogo: {} produtos em {} ms ({} threads), ~{} bytes/produto",
+                loadedSnapshot.size(), elapsedMillis, threads, bytesPerProduct);
+        Gauge.builder("products.snapshot.size", this, service -> service.snapshot.size())
+             .description("Produtos no snapshot em memória")
+             .register(meterRegistry);
+        Gauge.builder("products.snapshot.load.time", () -> elapsedMillis)
+             .baseUnit("milliseconds")
+             .register(meterRegistry);
+        Gauge.builder("products.snapshot.bytes.per.product", () -> bytesPerProduct)
+             .description("Memória estimada por produto na carga inicial")
+             .baseUnit("bytes")
+             .register(meterRegistry);
+    }
+
+    // Reaplica no snapshot os eventos depois do seu feedSeq (escritas confirmadas durante a carga)
+    private void replayFeed() {
+        while (true) {
+            long since = snapshot.feedSeq();
+            List<ProductChange> changes = snapshotTx.execute(status ->
+                    changeRepository.findBySeqGreaterThanOrderBySeqAsc(since, PageRequest.of(0, 1000)));
+            if (changes.isEmpty()) {
+                return;
+            }
+            applyToSnapshot(changes, true);
+            logger.info("Snapshot: {} eventos da carga reaplicados (até o seq {})", changes.size(), snapshot.feedSeq());
+        }
+    }
+
+    private long loadRangesInParallel(ProductSnapshot.Loader loader, int threads) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> parts = new ArrayList<>();
+            for (int r = 0; r < SNAPSHOT_LOAD_RANGES; r++) {
+                UUID from = new UUID((long) r << 60, 0);
+                UUID to = r == SNAPSHOT_LOAD_RANGES - 1 ? null : new UUID((long) (r + 1) << 60, 0);
+                parts.add(pool.submit(() -> addRows(loader,
+                        to == null ? repository.findRowsFrom(from) : repository.findRowsInRange(from, to))));
+            }
+            long loaded = 0;
+            for (Future<Integer> part : parts) {
+                loaded += part.get();
+            }
+            return loaded;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Carga do snapshot interrompida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falha ao carregar o snapshot do catálogo", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static int addRows(ProductSnapshot.Loader loader, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            loader.add((UUID) row[0], (String) row[1], (Double) row[2], (String) row[3], (Long) row[4]);
+        }
+        return rows.size();
+    }
+
+    /**
+     * Publica um novo snapshot com o estado que os eventos carregam (o produto inteiro, ou
+     * a remoção), sem consultar o banco: roda no afterCommit da escrita, que ainda segura
+     * a sua conexão, e pedir outra ali esgotaria o pool com escritas concorrentes.
+     *
+     * @param ordered eventos contíguos em ordem de seq (poller ou reaplicação), que
+     *                avançam o feedSeq do snapshot; os do commit local podem chegar fora de ordem
+     */
+    private void applyToSnapshot(List<ProductChange> changes, boolean ordered) {
+        synchronized (snapshotLock) {
+            long feedSeq = snapshot.feedSeq();
+            Set<UUID> ids = new LinkedHashSet<>();
+            Map<UUID, Product> current = new HashMap<>();
+            for (ProductChange change : changes) {
+                UUID id = change.getProductId();
+                long seq = change.getSeq();
+                Long applied = appliedAhead.get(id);
+                if (seq <= feedSeq || (applied != null && seq <= applied)) {
+                    continue;
+                }
+                appliedAhead.put(id, seq);
+                ids.add(id);
+                if (change.getType() == ProductChange.Type.DELETE) {
+                    current.remove(id);
+                } else {
+                    Product product = new Product(change.getName(), change.getPrice(), change.getUnit());
+                    product.setId(id);
+                    product.setVersion(change.getVersion());
+                    current.put(id, product);
+                }
+            }
+            long nextSeq = feedSeq;
+            if (ordered && !changes.isEmpty()) {
+                long last = changes.get(changes.size() - 1).getSeq();
+                if (last > feedSeq) {
+                    nextSeq = last;
+                    appliedAhead.values().removeIf(seq -> seq <= last);
+                }
+            }
+            if (!ids.isEmpty() || nextSeq != feedSeq) {
+                snapshot = snapshot.apply(ids, current, nextSeq);
+            }
+        }
     }
 
-    public void deleteById(UUID id) {
-        repository.deleteById(id);
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 }
@@ -0,0 +1,328 @@
+package com.insper.product.service;
+
+import com.insper.product.model.Product;
+import com.insper.product.model.ProductCatalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Cópia imutável do catálogo inteiro, indexada por id (modo snapshot do ProductService).
+ *
+ * Os produtos ficam em 256 shards pelo primeiro byte do id, cada um com colunas de
+ * primitivos ordenadas pelo id (comparação sem sinal, a mesma ordem do banco). Uma
+ * escrita gera um novo snapshot copiando só os shards tocados; os demais são
+ * compartilhados com o anterior, e leitores do snapshot antigo não são afetados.
+ *
+ * Cada snapshot leva o seq do change feed até o qual reflete todos os eventos, publicado
+ * junto com ele (GET /products devolve esse seq como ponto de partida do feed).
+ */
+final class ProductSnapshot {
+
+    static final int SHARDS = 256;
+
+    private final Shard[] shards;
+    private final int size;
+    private final long feedSeq;
+
+    // Visão de GET /products, montada na primeira leitura de cada snapshot
+    private volatile ProductCatalog catalog;
+
+    private ProductSnapshot(Shard[] shards, long feedSeq) {
+        this.shards = shards;
+        this.feedSeq = feedSeq;
+        int total = 0;
+        for (Shard shard : shards) {
+            total += shard.size;
+        }
+        this.size = total;
+    }
+
+    static int shardOf(long idHigh) {
+        return (int) (idHigh >>> 56);
+    }
+
+    int size() {
+        return size;
+    }
+
+    long feedSeq() {
+        return feedSeq;
+    }
+
+    Product find(UUID id) {
+        Shard shard = shards[shardOf(id.getMostSignificantBits())];
+        int index = shard.indexOf(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        return index < 0 ? null : shard.product(index);
+    }
+
+    ProductCatalog catalog() {
+        ProductCatalog view = catalog;
+        if (view == null) {
+            ProductCatalog.Builder builder = ProductCatalog.builder(size).feedSeq(feedSeq);
+            for (Shard shard : shards) {
+                for (int i = 0; i < shard.size; i++) {
+                    builder.add(shard.high[i], shard.low[i], shard.names[i], shard.prices[i], shard.units[i], shard.versions[i]);
+                }
+            }
+            view = builder.build();
+            catalog = view;
+        }
+        return view;
+    }
+
+    /**
+     * Novo snapshot com o estado atual dos {@code ids}: os presentes em {@code current}
+     * são inseridos ou substituídos, os ausentes são removidos.
+     */
+    ProductSnapshot apply(Collection<UUID> ids, Map<UUID, Product> current, long feedSeq) {
+        List<List<UUID>> byShard = new ArrayList<>(SHARDS);
+        for (int i = 0; i < SHARDS; i++) {
+            byShard.add(null);
+        }
+        for (UUID id : ids) {
+            int s = shardOf(id.getMostSignificantBits());
+            if (byShard.get(s) == null) {
+                byShard.set(s, new ArrayList<>());
+            }
+            byShard.get(s).add(id);
+        }
+
+        Shard[] next = shards.clone();
+        for (int s = 0; s < SHARDS; s++) {
+            List<UUID> changed = byShard.get(s);
+            if (changed != null) {
+                next[s] = shards[s].apply(changed, current);
+            }
+        }
+        return new ProductSnapshot(next, feedSeq);
+    }
+
+    /**
+     * Estimativa da memória ocupada (colunas mais as Strings de nome e unidade),
+     * supondo referências comprimidas e Strings Latin-1.
+     */
+    long estimatedBytes() {
+        long bytes = 0;
+        Set<String> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Shard shard : shards) {
+            bytes += 4 * arrayBytes(shard.high.length, 8) + 2 * arrayBytes(shard.names.length, 4);
+            for (int i = 0; i < shard.size; i++) {
+                bytes += stringBytes(shard.names[i], seen) + stringBytes(shard.units[i], seen);
+            }
+        }
+        return bytes;
+    }
+
+    private static long arrayBytes(int length, int elementBytes) {
+        return align(16 + (long) length * elementBytes);
+    }
+
+    private static long stringBytes(String value, Set<String> seen) {
+        if (value == null || !seen.add(value)) {
+            return 0;
+        }
+        return 24 + arrayBytes(value.length(), 1);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * Monta o snapshot inicial. Cada shard deve ser preenchido por uma única thread.
+     */
+    static final class Loader {
+        private final ShardBuilder[] builders = new ShardBuilder[SHARDS];
+
+        Loader() {
+            for (int i = 0; i < SHARDS; i++) {
+                builders[i] = new ShardBuilder();
+            }
+        }
+
+        void add(UUID id, String name, Double price, String unit, Long version) {
+            builders[shardOf(id.getMostSignificantBits())].add(id.getMostSignificantBits(), id.getLeastSignificantBits(),
+                    name, ProductCatalog.toPriceColumn(price), unit,
+                    version == null ? ProductCatalog.NULL : version);
+        }
+
+        ProductSnapshot build(long feedSeq) {
+            Shard[] shards = new Shard[SHARDS];
+            for (int i = 0; i < SHARDS; i++) {
+                shards[i] = builders[i].build();
+            }
+            return new ProductSnapshot(shards, feedSeq);
+        }
+    }
+
+    private static int compare(long high1, long low1, long high2, long low2) {
+        int c = Long.compareUnsigned(high1, high2);
+        return c != 0 ? c : Long.compareUnsigned(low1, low2);
+    }
+
+    private static final class Shard {
+        final int size;
+        final long[] high;
+        final long[] low;
+        final String[] names;
+        final double[] prices;
+        final String[] units;
+        final long[] versions;
+
+        Shard(int size, long[] high, long[] low, String[] names, double[] prices, String[] units, long[] versions) {
+            this.size = size;
+            this.high = high;
+            this.low = low;
+            this.names = names;
+            this.prices = prices;
+            this.units = units;
+            this.versions = versions;
+        }
+
+        int indexOf(long h, long l) {
+            int lo = 0;
+            int hi = size - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int c = compare(high[mid], low[mid], h, l);
+                if (c < 0) {
+                    lo = mid + 1;
+                } else if (c > 0) {
+                    hi = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        Product product(int i) {
+            Product product = new Product(names[i], ProductCatalog.fromPriceColumn(prices[i]), units[i]);
+            product.setId(new UUID(high[i], low[i]));
+            product.setVersion(versions[i] == ProductCatalog.NULL ? null : versions[i]);
+            return product;
+        }
+
+        // Intercala as linhas atuais com as alteradas (ordenadas), numa única cópia do shard
+        Shard apply(List<UUID> changed, Map<UUID, Product> current) {
+            changed.sort((a, b) -> compare(a.getMostSignificantBits(), a.getLeastSignificantBits(),
+                                           b.getMostSignificantBits(), b.getLeastSignificantBits()));
+            ShardBuilder out = new ShardBuilder(size + changed.size());
+            int i = 0;
+            UUID previous = null;
+            for (UUID id : changed) {
+                if (id.equals(previous)) {
+                    continue;
+                }
+                previous = id;
+                long h = id.getMostSignificantBits();
+                long l = id.getLeastSignificantBits();
+                while (i < size && compare(high[i], low[i], h, l) < 0) {
+                    out.add(high[i], low[i], names[i], prices[i], units[i], versions[i]);
+                    i++;
+                }
+                if (i < size && high[i] == h && low[i] == l) {
+                    i++; // substituída ou removida
+                }
+                Product product = current.get(id);
+                if (product != null) {
+                    out.add(h, l, product.getName(),
+                            ProductCatalog.toPriceColumn(product.getPrice()),
+                            product.getUnit(),
+                            product.getVersion() == null ? ProductCatalog.NULL : product.getVersion());
+                }
+            }
+            while (i < size) {
+                out.add(high[i], low[i], names[i], prices[i], units[i], versions[i]);
+                i++;
+            }
+            return out.build();
+        }
+    }
+
+    private static final class ShardBuilder {
+        private int size;
+        private long[] high;
+        private long[] low;
+        private String[] names;
+        private double[] prices;
+        private String[] units;
+        private long[] versions;
+
+        ShardBuilder() {
+            this(16);
+        }
+
+        ShardBuilder(int capacity) {
+            high = new long[capacity];
+            low = new long[capacity];
+            names = new String[capacity];
+            prices = new double[capacity];
+            units = new String[capacity];
+            versions = new long[capacity];
+        }
+
+        void add(long h, long l, String name, double price, String unit, long version) {
+            if (size == high.length) {
+                int capacity = Math.max(16, size * 2);
+                high = Arrays.copyOf(high, capacity);
+                low = Arrays.copyOf(low, capacity);
+                names = Arrays.copyOf(names, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                units = Arrays.copyOf(units, capacity);
+                versions = Arrays.copyOf(versions, capacity);
+            }
+            high[size] = h;
+            low[size] = l;
+            names[size] = name;
+            prices[size] = price;
+            units[size] = unit;
+            versions[size] = version;
+            size++;
+        }
+
+        Shard build() {
+            if (!isSorted()) {
+                sort();
+            }
+            return new Shard(size, Arrays.copyOf(high, size), Arrays.copyOf(low, size), Arrays.copyOf(names, size),
+                    Arrays.copyOf(prices, size), Arrays.copyOf(units, size), Arrays.copyOf(versions, size));
+        }
+
+        private boolean isSorted() {
+            for (int i = 1; i < size; i++) {
+                if (compare(high[i - 1], low[i - 1], high[i], low[i]) >= 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Só quando o banco não devolveu as linhas na ordem esperada
+        private void sort() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> compare(high[a], low[a], high[b], low[b]));
+            ShardBuilder sorted = new ShardBuilder(Math.max(16, size));
+            for (int i : order) {
+                sorted.add(high[i], low[i], names[i], prices[i], units[i], versions[i]);
+            }
+            high = sorted.high;
+            low = sorted.low;
+            names = sorted.names;
+            prices = sorted.prices;
+            units = sorted.units;
+            versions = sorted.versions;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.insper.product.transfer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Entrada de uma importação dividida em blocos de até {@code chunkBytes}, cada um
+ * terminando num fim de linha, para que cada bloco seja interpretado por uma thread
+ * sem olhar os vizinhos.
+ *
+ * Arquivos são mapeados em memória bloco a bloco (FileChannel.map): os bytes vêm do
+ * cache de páginas do sistema operacional, sem cópia para o heap. Corpos de requisição
+ * são lidos por um canal NIO em buffers de heap, e o pedaço de linha que sobra no fim
+ * de um bloco passa para o começo do próximo.
+ */
+public abstract class ChunkedInput implements Closeable {
+
+    // A primeira linha (cabeçalho do CSV) é lida à parte e não pode passar disso
+    private static final int MAX_HEADER_BYTES = 64 * 1024;
+
+    protected final int chunkBytes;
+    protected long position;
+
+    protected ChunkedInput(int chunkBytes) {
+        this.chunkBytes = chunkBytes;
+    }
+
+    public static ChunkedInput of(Path file, int chunkBytes) throws IOException {
+        return new MappedFile(FileChannel.open(file, StandardOpenOption.READ), chunkBytes);
+    }
+
+    public static ChunkedInput of(InputStream in, int chunkBytes) {
+        return new Stream(Channels.newChannel(in), chunkBytes);
+    }
+
+    /** Lê e consome a primeira linha (sem o fim de linha), ou null se a entrada está vazia. */
+    public abstract String readHeader() throws IOException;
+
+    /**
+     * Próximo bloco, só com linhas inteiras, ou null no fim da entrada.
+     *
+     * @throws IllegalArgumentException se uma linha não cabe num bloco
+     */
+    public abstract Chunk next() throws IOException;
+
+    /** Tamanho total em bytes, ou -1 se não se sabe (corpo de requisição). */
+    public abstract long size();
+
+    /** Bytes já entregues em blocos (e no cabeçalho). */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Um bloco de linhas. {@code offset} é a posição do primeiro byte na entrada, para
+     * indicar onde está uma linha com erro.
+     */
+    public static final class Chunk {
+        private final ByteBuffer data;
+        private final long offset;
+
+        Chunk(ByteBuffer data, long offset) {
+            this.data = data;
+            this.offset = offset;
+        }
+
+        public ByteBuffer getData() { return data; }
+
+        public long getOffset() { return offset; }
+    }
+
+    private static String decodeLine(ByteBuffer buffer, int end) {
+        if (end > 0 && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        byte[] bytes = new byte[end];
+        buffer.get(0, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int indexOf(ByteBuffer buffer, int from, int to, byte value) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastIndexOf(ByteBuffer buffer, int to, byte value) {
+        for (int i = to - 1; i >= 0; i--) {
+            if (buffer.get(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static IllegalArgumentException lineTooLong(long offset, int chunkBytes) {
+        return new IllegalArgumentException("Linha na posição " + offset + " maior que o bloco de " + chunkBytes
+                + " bytes (product.import.chunk-size)");
+    }
+
+    private static final class MappedFile extends ChunkedInput {
+        private final FileChannel channel;
+        private final long size;
+
+        MappedFile(FileChannel channel, int chunkBytes) throws IOException {
+            super(chunkBytes);
+            this.channel = channel;
+            this.size = channel.size();
+        }
+
+        @Override
+        public String readHeader() throws IOException {
+            if (size == 0) {
+                return null;
+            }
+            int length = (int) Math.min(size, MAX_HEADER_BYTES);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            int newline = indexOf(buffer, 0, length, (byte) '\n');
+            if (newline < 0 && length < size) {
+                throw lineTooLong(0, MAX_HEADER_BYTES);
+            }
+            int end = newline < 0 ? length : newline;
+            position = newline < 0 ? length : newline + 1;
+            return decodeLine(buffer, end);
+        }
+
+        @Override
+        public Chunk next() throws IOException {
+            if (position >= size) {
+                return null;
+            }
+            int length = (int) Math.min(chunkBytes, size - position);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            int end = length;
+            if (position + length < size) {
+                end = lastIndexOf(buffer, length, (byte) '\n') + 1;
+                if (end == 0) {
+                    throw lineTooLong(position, chunkBytes);
+                }
+            }
+            Chunk chunk = new Chunk(buffer.slice(0, end), position);
+            position += end;
+            return chunk;
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private static final class Stream extends ChunkedInput {
+        private final ReadableByteChannel channel;
+        private ByteBuffer carry = ByteBuffer.allocate(0);
+        private boolean eof;
+
+        Stream(ReadableByteChannel channel, int chunkBytes) {
+            super(chunkBytes);
+            this.channel = channel;
+        }
+
+        @Override
+        public String readHeader() throws IOException {
+            ByteBuffer buffer = fill(ByteBuffer.allocate(MAX_HEADER_BYTES));
+            int length = buffer.position();
+            if (length == 0) {
+                return null;
+            }
+            int newline = indexOf(buffer, 0, length, (byte) '\n');
+            if (newline < 0 && !eof) {
+                throw lineTooLong(0, MAX_HEADER_BYTES);
+            }
+            int end = newline < 0 ? length : newline;
+            int consumed = newline < 0 ? length : newline + 1;
+            carry = buffer.slice(consumed, length - consumed);
+            position = consumed;
+            return decodeLine(buffer, end);
+        }
+
+        @Override
+        public Chunk next() throws IOException {
+            if (eof && !carry.hasRemaining()) {
+                return null;
+            }
+            // Buffer novo a cada bloco: o anterior ainda está com a thread que o interpreta.
+            // A sobra pode passar de um bloco (depois do cabeçalho); o canal só é lido quando ela acaba
+            ByteBuffer buffer = ByteBuffer.allocate(chunkBytes);
+            int fromCarry = Math.min(carry.remaining(), chunkBytes);
+            buffer.put(carry.slice(carry.position(), fromCarry));
+            carry.position(carry.position() + fromCarry);
+            if (!carry.hasRemaining()) {
+                fill(buffer);
+            }
+            int length = buffer.position();
+            if (length == 0) {
+                return null;
+            }
+            int end = length;
+            if (!eof || carry.hasRemaining()) {
+                end = lastIndexOf(buffer, length, (byte) '\n') + 1;
+                if (end == 0) {
+                    throw lineTooLong(position, chunkBytes);
+                }
+            }
+            ByteBuffer rest = buffer.slice(end, length - end);
+            if (carry.hasRemaining()) {
+                rest = ByteBuffer.allocate(rest.remaining() + carry.remaining()).put(rest).put(carry).flip();
+            }
+            carry = rest;
+            Chunk chunk = new Chunk(buffer.slice(0, end), position);
+            position += end;
+            return chunk;
+        }
+
+        private ByteBuffer fill(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining() && !eof) {
+                if (channel.read(buffer) < 0) {
+                    eof = true;
+                }
+            }
+            return buffer;
+        }
+
+        @Override
+        public long size() {
+            return -1;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
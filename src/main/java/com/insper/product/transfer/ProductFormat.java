@@ -0,0 +1,270 @@
+package com.insper.product.transfer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.insper.product.model.Product;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Formatos de importação e exportação do catálogo, sempre um produto por linha (UTF-8):
+ *
+ * - CSV: cabeçalho com as colunas (id, name, price, unit e version, em qualquer ordem;
+ *   só name é obrigatória, version é ignorada na importação). Campos com vírgula ou aspas
+ *   vão entre aspas, com aspas dobradas; campo vazio é null. Quebra de linha dentro de um
+ *   campo não é aceita: para nomes com quebra de linha, use NDJSON.
+ * - NDJSON: um objeto JSON por linha, com os campos de Product.
+ */
+public enum ProductFormat {
+
+    CSV("text/csv", "csv") {
+        @Override
+        public boolean hasHeader() {
+            return true;
+        }
+
+        @Override
+        public RecordParser parser(String header, ObjectMapper mapper) {
+            return new CsvParser(header);
+        }
+
+        @Override
+        public RecordWriter writer(OutputStream out, ObjectMapper mapper) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            return new RecordWriter() {
+                private boolean started;
+
+                @Override
+                public void write(Product product) throws IOException {
+                    if (!started) {
+                        writer.write("id,name,price,unit,version\n");
+                        started = true;
+                    }
+                    writer.write(product.getId() == null ? "" : product.getId().toString());
+                    writer.write(',');
+                    writer.write(quote(product.getName()));
+                    writer.write(',');
+                    if (product.getPrice() != null) {
+                        writer.write(BigDecimal.valueOf(product.getPrice()).toPlainString());
+                    }
+                    writer.write(',');
+                    writer.write(quote(product.getUnit()));
+                    writer.write(',');
+                    if (product.getVersion() != null) {
+                        writer.write(Long.toString(product.getVersion()));
+                    }
+                    writer.write('\n');
+                }
+
+                @Override
+                public void close() throws IOException {
+                    if (!started) {
+                        writer.write("id,name,price,unit,version\n");
+                    }
+                    writer.flush();
+                }
+            };
+        }
+    },
+
+    NDJSON("application/x-ndjson", "ndjson") {
+        @Override
+        public boolean hasHeader() {
+            return false;
+        }
+
+        @Override
+        public RecordParser parser(String header, ObjectMapper mapper) {
+            ObjectReader reader = mapper.readerFor(Product.class);
+            return (line, length) -> {
+                Product product = reader.readValue(line, 0, length);
+                if (product == null) {
+                    throw new IllegalArgumentException("linha não é um objeto JSON");
+                }
+                return product;
+            };
+        }
+
+        @Override
+        public RecordWriter writer(OutputStream out, ObjectMapper mapper) throws IOException {
+            JsonGenerator generator = mapper.getFactory().createGenerator(out);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Sem o espaço que o Jackson põe entre valores na raiz: cada valor termina em '\n'
+            generator.setRootValueSeparator(null);
+            return new RecordWriter() {
+                @Override
+                public void write(Product product) throws IOException {
+                    generator.writeObject(product);
+                    generator.writeRaw('\n');
+                }
+
+                @Override
+                public void close() throws IOException {
+                    generator.close();
+                }
+            };
+        }
+    };
+
+    private final String mediaType;
+    private final String extension;
+
+    ProductFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public String getMediaType() { return mediaType; }
+
+    public String getExtension() { return extension; }
+
+    /** A primeira linha é um cabeçalho (lido à parte, antes dos blocos). */
+    public abstract boolean hasHeader();
+
+    /** Um parser por thread; {@code header} é a primeira linha quando {@link #hasHeader()}. */
+    public abstract RecordParser parser(String header, ObjectMapper mapper);
+
+    public abstract RecordWriter writer(OutputStream out, ObjectMapper mapper) throws IOException;
+
+    /** Aceita "csv" ou "ndjson", ou o media type (sem diferenciar maiúsculas). */
+    public static ProductFormat from(String value) {
+        for (ProductFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(value.trim()) || format.mediaType.equalsIgnoreCase(value.trim())) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Formato inválido: " + value + " (use csv ou ndjson)");
+    }
+
+    /** Pela extensão do arquivo: .csv, ou .ndjson/.jsonl. */
+    public static ProductFormat fromFileName(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Formato não reconhecido pela extensão: " + fileName
+                + " (use .csv, .ndjson ou .jsonl, ou informe o formato)");
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "";
+        }
+        boolean needsQuotes = value.isEmpty();
+        for (int i = 0; i < value.length() && !needsQuotes; i++) {
+            char c = value.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        return needsQuotes ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+
+    /** Converte uma linha (sem o '\n') em produto; erros viram IllegalArgumentException ou IOException. */
+    @FunctionalInterface
+    public interface RecordParser {
+        Product parse(byte[] line, int length) throws IOException;
+    }
+
+    public interface RecordWriter extends Closeable {
+        void write(Product product) throws IOException;
+    }
+
+    private static final class CsvParser implements RecordParser {
+        private final int id;
+        private final int name;
+        private final int price;
+        private final int unit;
+        private final int columns;
+
+        CsvParser(String header) {
+            List<String> names = fields(header.startsWith("\uFEFF") ? header.substring(1) : header);
+            int id = -1;
+            int name = -1;
+            int price = -1;
+            int unit = -1;
+            for (int i = 0; i < names.size(); i++) {
+                String column = names.get(i) == null ? "" : names.get(i).trim().toLowerCase(Locale.ROOT);
+                switch (column) {
+                    case "id": id = i; break;
+                    case "name": name = i; break;
+                    case "price": price = i; break;
+                    case "unit": unit = i; break;
+                    case "version": break;
+                    default: throw new IllegalArgumentException("Coluna desconhecida no cabeçalho do CSV: " + column);
+                }
+            }
+            if (name < 0) {
+                throw new IllegalArgumentException("O cabeçalho do CSV precisa da coluna name");
+            }
+            this.id = id;
+            this.name = name;
+            this.price = price;
+            this.unit = unit;
+            this.columns = names.size();
+        }
+
+        @Override
+        public Product parse(byte[] line, int length) {
+            List<String> values = fields(new String(line, 0, length, StandardCharsets.UTF_8));
+            if (values.size() != columns) {
+                throw new IllegalArgumentException("esperadas " + columns + " colunas, encontradas " + values.size());
+            }
+            Product product = new Product(values.get(name),
+                                          price < 0 || values.get(price) == null ? null : Double.valueOf(values.get(price)),
+                                          unit < 0 ? null : values.get(unit));
+            if (id >= 0 && values.get(id) != null) {
+                product.setId(UUID.fromString(values.get(id)));
+            }
+            return product;
+        }
+
+        // Campos separados por vírgula, com aspas opcionais; vazio (sem aspas) é null
+        static List<String> fields(String line) {
+            List<String> fields = new ArrayList<>(5);
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean wasQuoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"' && field.length() == 0 && !wasQuoted) {
+                    quoted = true;
+                    wasQuoted = true;
+                } else if (c == ',') {
+                    fields.add(field.length() == 0 && !wasQuoted ? null : field.toString());
+                    field.setLength(0);
+                    wasQuoted = false;
+                } else {
+                    field.append(c);
+                }
+            }
+            if (quoted) {
+                throw new IllegalArgumentException("aspas sem fechamento");
+            }
+            fields.add(field.length() == 0 && !wasQuoted ? null : field.toString());
+            return fields;
+        }
+    }
+}
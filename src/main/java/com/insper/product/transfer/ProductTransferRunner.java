@@ -0,0 +1,87 @@
+package com.insper.product.transfer;
+
+import com.insper.product.model.ImportResult;
+import com.insper.product.service.ProductExportService;
+import com.insper.product.service.ProductImportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Modo linha de comando: {@code --import=<arquivo>} ou {@code --export=<arquivo>}, com
+ * {@code --format=csv|ndjson} opcional (senão, pela extensão). ProductApplication sobe
+ * sem servidor web nesse modo e encerra com o código de saída daqui: 0 se deu certo,
+ * 1 se falhou, 2 se a importação terminou com linhas rejeitadas.
+ */
+@Component
+public class ProductTransferRunner implements ApplicationRunner, ExitCodeGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductTransferRunner.class);
+
+    private static final String IMPORT = "import";
+    private static final String EXPORT = "export";
+    private static final String FORMAT = "format";
+
+    @Autowired
+    private ProductImportService importService;
+
+    @Autowired
+    private ProductExportService exportService;
+
+    private int exitCode;
+
+    /** Os argumentos pedem uma importação ou exportação (e não a subida do serviço). */
+    public static boolean isCommand(String[] args) {
+        return Arrays.stream(args).anyMatch(arg -> arg.startsWith("--" + IMPORT + "=") || arg.startsWith("--" + EXPORT + "="));
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            if (args.containsOption(IMPORT)) {
+                Path file = Path.of(single(args, IMPORT));
+                ImportResult result = importService.importFile(file, format(args, file));
+                result.getErrors().forEach(error -> logger.warn("Linha rejeitada: {}", error));
+                exitCode = result.getFailed() > 0 ? 2 : 0;
+            } else if (args.containsOption(EXPORT)) {
+                Path file = Path.of(single(args, EXPORT));
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024)) {
+                    exportService.export(format(args, file), out);
+                }
+            }
+        } catch (Exception ex) {
+            logger.error("Falha na transferência do catálogo: {}", ex.getMessage(), ex);
+            exitCode = 1;
+        }
+    }
+
+    @Override
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    private static ProductFormat format(ApplicationArguments args, Path file) {
+        return args.containsOption(FORMAT)
+                ? ProductFormat.from(single(args, FORMAT))
+                : ProductFormat.fromFileName(file.getFileName().toString());
+    }
+
+    private static String single(ApplicationArguments args, String option) {
+        List<String> values = args.getOptionValues(option);
+        if (values.size() != 1 || values.get(0).isBlank()) {
+            throw new IllegalArgumentException("Informe --" + option + "=<valor> uma única vez");
+        }
+        return values.get(0);
+    }
+}
@@ -0,0 +1,16 @@
+-- Mesmo esquema da migração do Postgres. O Hibernate grava UUID como binário no H2,
+-- e o H2 não tem índice por expressão (o de lower(name) fica só no Postgres).
+CREATE TABLE IF NOT EXISTS product (
+    id      BINARY(16) PRIMARY KEY,
+    name    VARCHAR(255),
+    price   DOUBLE PRECISION,
+    unit    VARCHAR(255),
+    version BIGINT
+);
+
+-- O ddl-auto=update antigo criou a tabela sem a coluna de versão
+ALTER TABLE product ADD COLUMN IF NOT EXISTS version BIGINT;
+
+CREATE INDEX IF NOT EXISTS idx_product_name ON product (name);
+CREATE INDEX IF NOT EXISTS idx_product_price ON product (price);
+CREATE INDEX IF NOT EXISTS idx_product_unit_price ON product (unit, price);
@@ -0,0 +1,17 @@
+CREATE TABLE IF NOT EXISTS product_change (
+    seq        BIGINT PRIMARY KEY,
+    product_id BINARY(16) NOT NULL,
+    type       VARCHAR(16) NOT NULL,
+    name       VARCHAR(255),
+    price      DOUBLE PRECISION,
+    unit       VARCHAR(255),
+    version    BIGINT,
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_product_change_created_at ON product_change (created_at);
+
+CREATE TABLE IF NOT EXISTS product_feed_head (
+    id  INTEGER PRIMARY KEY,
+    seq BIGINT NOT NULL
+);
@@ -0,0 +1,20 @@
+-- Tabela de produtos e índices da busca. IF NOT EXISTS: bancos criados antes pelo
+-- ddl-auto=update recebem o baseline (versão 0) e passam por aqui sem erro.
+CREATE TABLE IF NOT EXISTS product (
+    id      UUID PRIMARY KEY,
+    name    VARCHAR(255),
+    price   DOUBLE PRECISION,
+    unit    VARCHAR(255),
+    version BIGINT
+);
+
+-- O ddl-auto=update antigo criou a tabela sem a coluna de versão
+ALTER TABLE product ADD COLUMN IF NOT EXISTS version BIGINT;
+
+CREATE INDEX IF NOT EXISTS idx_product_name ON product (name);
+CREATE INDEX IF NOT EXISTS idx_product_price ON product (price);
+CREATE INDEX IF NOT EXISTS idx_product_unit_price ON product (unit, price);
+
+-- Busca por prefixo sem diferenciar maiúsculas (lower(name) LIKE 'abc%'): com um
+-- collation diferente de C, só um índice com varchar_pattern_ops atende o LIKE
+CREATE INDEX IF NOT EXISTS idx_product_lower_name ON product (lower(name) varchar_pattern_ops);
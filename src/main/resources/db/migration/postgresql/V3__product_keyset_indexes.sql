@@ -0,0 +1,5 @@
+-- Paginação keyset por nome e por preço (GET /products/page?sort=name|price): a ordem é por
+-- coalesce(coluna, ...), id, que os índices simples de name e price não atendem. Com estes,
+-- cada página é uma varredura do índice a partir do cursor, limitada ao tamanho da página.
+CREATE INDEX IF NOT EXISTS idx_product_name_key ON product ((coalesce(name, '')), id);
+CREATE INDEX IF NOT EXISTS idx_product_price_key ON product ((coalesce(price, 0.0)), id);
@@ -0,0 +1,85 @@
+package com.insper.product.controller;
+
+import com.insper.product.model.Product;
+import com.insper.product.model.ProductChange;
+import com.insper.product.model.ProductChangesPage;
+import com.insper.product.service.ProductChangeFeed;
+import com.insper.product.service.ProductChangeFeed.ChangesExpiredException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = ProductChangeController.class)
+@AutoConfigureMockMvc
+class ProductChangeControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ProductChangeFeed feed;
+
+    @Test
+    @DisplayName("Deve retornar as mudanças depois de since e o próximo since")
+    void changes_afterSince() throws Exception {
+        Product caneta = new Product("Caneta", 2.5, "un");
+        caneta.setId(UUID.randomUUID());
+        ProductChange upsert = ProductChange.upsert(caneta);
+        upsert.setSeq(11L);
+        ProductChange delete = ProductChange.delete(UUID.randomUUID());
+        delete.setSeq(12L);
+
+        given(feed.changesSince(10, 500)).willReturn(new ProductChangesPage(Arrays.asList(upsert, delete), 12, false));
+
+        mockMvc.perform(get("/products/changes").param("since", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes", hasSize(2)))
+                .andExpect(jsonPath("$.changes[0].type", is("UPSERT")))
+                .andExpect(jsonPath("$.changes[0].name", is("Caneta")))
+                .andExpect(jsonPath("$.changes[1].type", is("DELETE")))
+                .andExpect(jsonPath("$.changes[1].name").doesNotExist())
+                .andExpect(jsonPath("$.nextSince", is(12)))
+                .andExpect(jsonPath("$.hasMore", is(false)));
+    }
+
+    @Test
+    @DisplayName("Deve retornar 410 quando os eventos já saíram da retenção")
+    void changes_expired() throws Exception {
+        given(feed.changesSince(3, 500)).willThrow(new ChangesExpiredException(3));
+
+        mockMvc.perform(get("/products/changes").param("since", "3"))
+                .andExpect(status().isGone());
+    }
+
+    @Test
+    @DisplayName("Deve retornar 400 para limit fora do intervalo")
+    void changes_invalidLimit() throws Exception {
+        mockMvc.perform(get("/products/changes").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Deve abrir o stream SSE a partir do Last-Event-ID")
+    void stream_resumesFromLastEventId() throws Exception {
+        given(feed.subscribe(42)).willReturn(new SseEmitter());
+
+        mockMvc.perform(get("/products/changes")
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .header("Last-Event-ID", "42"))
+                .andExpect(request().asyncStarted());
+    }
+}
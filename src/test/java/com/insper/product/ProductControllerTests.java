@@ -1,8 +1,29 @@
 package com.insper.product.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.insper.product.model.BatchItemResult;
+import com.insper.product.model.BatchResult;
+import com.insper.product.model.ImportResult;
+import com.insper.product.model.PriceUpdate;
 import com.insper.product.model.Product;
+import com.insper.product.model.ProductCatalog;
+import com.insper.product.model.ProductLookupResult;
+import com.insper.product.model.ProductPage;
+import com.insper.product.model.ProductSearchQuery;
+import com.insper.product.model.ProductSearchResult;
+import com.insper.product.model.ProductSort;
+import com.insper.product.model.ProductSuggestion;
+import com.insper.product.model.ProductSummary;
+import com.insper.product.search.ProductNameIndex;
+import com.insper.product.service.PriceUpdateQueue;
+import com.insper.product.service.ProductBatchService;
+import com.insper.product.service.ProductExportService;
+import com.insper.product.service.ProductImportService;
 import com.insper.product.service.ProductService;
+import com.insper.product.transfer.ProductFormat;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -13,17 +34,25 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.BDDMockito.given;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doAnswer;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -41,6 +70,21 @@ class ProductControllerTests {
     @MockBean
     private ProductService productService;
 
+    @MockBean
+    private ProductBatchService batchService;
+
+    @MockBean
+    private ProductNameIndex nameIndex;
+
+    @MockBean
+    private PriceUpdateQueue priceQueue;
+
+    @MockBean
+    private ProductImportService importService;
+
+    @MockBean
+    private ProductExportService exportService;
+
     private final ObjectMapper mapper = new ObjectMapper();
 
     @Nested
@@ -50,7 +94,7 @@ class ProductControllerTests {
         @Test
         @DisplayName("Deve retornar lista vazia quando não houver produtos")
         void getAll_emptyList() throws Exception {
-            given(productService.findAll()).willReturn(Arrays.asList());
+            given(productService.findCatalog()).willReturn(new ProductCatalog(Arrays.asList()));
 
             mockMvc.perform(get("/products"))
                     .andExpect(status().isOk())
@@ -73,7 +117,7 @@ class ProductControllerTests {
             p2.setPrice(15.00);
             p2.setUnit("un");
 
-            given(productService.findAll()).willReturn(Arrays.asList(p1, p2));
+            given(productService.findCatalog()).willReturn(new ProductCatalog(Arrays.asList(p1, p2)));
 
             mockMvc.perform(get("/products"))
                     .andExpect(status().isOk())
@@ -85,6 +129,108 @@ class ProductControllerTests {
                     .andExpect(jsonPath("$[0].unit", is("un")))
                     .andExpect(jsonPath("$[1].name", is("Caderno")));
         }
+
+        @Test
+        @DisplayName("Deve devolver o seq do change feed refletido no catálogo")
+        void getAll_feedSeqHeader() throws Exception {
+            UUID id = UUID.randomUUID();
+            ProductCatalog catalog = ProductCatalog.builder(1)
+                    .feedSeq(42)
+                    .add(id.getMostSignificantBits(), id.getLeastSignificantBits(), "Caneta", 2.5, "un", 3)
+                    .build();
+            given(productService.findCatalog()).willReturn(catalog);
+
+            mockMvc.perform(get("/products"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("X-Feed-Seq", "42"))
+                    .andExpect(jsonPath("$[0].id", is(id.toString())));
+        }
+
+        @Test
+        @DisplayName("Deve escrever o preço armazenado, sem arredondar, e campos nulos como null")
+        void getAll_exactPriceAndNulls() throws Exception {
+            Product p = new Product("Borracha", 0.1 + 0.2, null);
+            p.setId(UUID.randomUUID());
+            Product semPreco = new Product("Apontador", null, "un");
+            semPreco.setId(UUID.randomUUID());
+            semPreco.setVersion(1L);
+            given(productService.findCatalog()).willReturn(new ProductCatalog(Arrays.asList(p, semPreco)));
+
+            mockMvc.perform(get("/products"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string(containsString("\"price\":" + (0.1 + 0.2) + ",")))
+                    .andExpect(jsonPath("$[0].unit").value(nullValue()))
+                    .andExpect(jsonPath("$[0].version").value(nullValue()))
+                    .andExpect(jsonPath("$[1].id", is(semPreco.getId().toString())))
+                    .andExpect(jsonPath("$[1].price").value(nullValue()))
+                    .andExpect(jsonPath("$[1].version", is(1)));
+        }
+
+        @Test
+        @DisplayName("Deve responder em CBOR quando o cliente pedir application/cbor")
+        void getAll_cbor() throws Exception {
+            Product p = new Product("Caneta", 2.50, "un");
+            p.setId(UUID.randomUUID());
+            p.setVersion(1L);
+            given(productService.findCatalog()).willReturn(new ProductCatalog(Arrays.asList(p)));
+
+            MvcResult result = mockMvc.perform(get("/products").accept(MediaType.APPLICATION_CBOR))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                    .andReturn();
+
+            JsonNode body = new ObjectMapper(new CBORFactory()).readTree(result.getResponse().getContentAsByteArray());
+            assertEquals(1, body.size());
+            assertEquals(p.getId().toString(), body.get(0).get("id").asText());
+            assertEquals(2.50, body.get(0).get("price").asDouble());
+            assertEquals(1L, body.get(0).get("version").asLong());
+        }
+
+        @Test
+        @DisplayName("Deve responder em Smile quando o cliente pedir application/x-jackson-smile")
+        void getAll_smile() throws Exception {
+            Product p = new Product("Caderno", 15.00, "un");
+            p.setId(UUID.randomUUID());
+            given(productService.findCatalog()).willReturn(new ProductCatalog(Arrays.asList(p)));
+
+            MvcResult result = mockMvc.perform(get("/products").accept("application/x-jackson-smile"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType("application/x-jackson-smile"))
+                    .andReturn();
+
+            JsonNode body = new ObjectMapper(new SmileFactory()).readTree(result.getResponse().getContentAsByteArray());
+            assertEquals("Caderno", body.get(0).get("name").asText());
+        }
+
+        @Test
+        @DisplayName("Deve retornar 304 quando o If-None-Match bater com a ETag do catálogo")
+        void getAll_notModified() throws Exception {
+            Product p = new Product("Caneta", 2.50, "un");
+            p.setId(UUID.randomUUID());
+            p.setVersion(2L);
+            ProductCatalog catalog = new ProductCatalog(Arrays.asList(p));
+            given(productService.findCatalog()).willReturn(catalog);
+
+            mockMvc.perform(get("/products").header("If-None-Match", catalog.getEtag()))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string("ETag", catalog.getEtag()))
+                    .andExpect(content().string(""));
+        }
+
+        @Test
+        @DisplayName("Deve mudar a ETag do catálogo quando a versão de um produto mudar")
+        void getAll_etagChangesWithVersion() throws Exception {
+            Product p = new Product("Caneta", 2.50, "un");
+            p.setId(UUID.randomUUID());
+            p.setVersion(2L);
+            String before = new ProductCatalog(Arrays.asList(p)).getEtag();
+            p.setVersion(3L);
+            given(productService.findCatalog()).willReturn(new ProductCatalog(Arrays.asList(p)));
+
+            mockMvc.perform(get("/products").header("If-None-Match", before))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)));
+        }
     }
 
     @Nested
@@ -121,6 +267,38 @@ class ProductControllerTests {
                     .andExpect(jsonPath("$.price", is(1.20)))
                     .andExpect(jsonPath("$.unit", is("un")));
         }
+
+        @Test
+        @DisplayName("Deve responder o produto em CBOR quando o cliente pedir application/cbor")
+        void getById_cbor() throws Exception {
+            UUID randomId = UUID.randomUUID();
+            Product p = new Product("Lápis", 1.20, "un");
+            p.setId(randomId);
+            given(productService.findById(randomId)).willReturn(Optional.of(p));
+
+            MvcResult result = mockMvc.perform(get("/products/{id}", randomId).accept(MediaType.APPLICATION_CBOR))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                    .andReturn();
+
+            JsonNode body = new ObjectMapper(new CBORFactory()).readTree(result.getResponse().getContentAsByteArray());
+            assertEquals("Lápis", body.get("name").asText());
+        }
+
+        @Test
+        @DisplayName("Deve retornar 304 quando o If-None-Match bater com a versão do produto")
+        void getById_notModified() throws Exception {
+            UUID randomId = UUID.randomUUID();
+            Product p = new Product("Lápis", 1.20, "un");
+            p.setId(randomId);
+            p.setVersion(7L);
+
+            given(productService.findById(randomId)).willReturn(Optional.of(p));
+
+            mockMvc.perform(get("/products/{id}", randomId).header("If-None-Match", "\"7\""))
+                    .andExpect(status().isNotModified())
+                    .andExpect(content().string(""));
+        }
     }
 
     @Nested
@@ -172,6 +350,25 @@ class ProductControllerTests {
                     .andExpect(jsonPath("$.price", is(0.80)))
                     .andExpect(jsonPath("$.unit", is("un")));
         }
+
+        @Test
+        @DisplayName("Deve ignorar id e versão enviados no corpo da criação")
+        @WithMockUser(username = "admin", roles = {"ADMIN"})
+        void create_ignoresClientIdAndVersion() throws Exception {
+            Product saved = new Product("Borracha", 0.80, "un");
+            saved.setId(UUID.randomUUID());
+            saved.setVersion(0L);
+            given(productService.save(ArgumentMatchers.argThat(p -> p.getId() == null && p.getVersion() == null)))
+                    .willReturn(saved);
+
+            mockMvc.perform(post("/products")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"id\":\"" + UUID.randomUUID() + "\",\"version\":7,"
+                                    + "\"name\":\"Borracha\",\"price\":0.8,\"unit\":\"un\"}"))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.id", is(saved.getId().toString())))
+                    .andExpect(jsonPath("$.version", is(0)));
+        }
     }
 
     @Nested
@@ -188,7 +385,8 @@ class ProductControllerTests {
             p.setPrice(25.00);
             p.setUnit("un");
 
-            given(productService.findById(randomId)).willReturn(Optional.empty());
+            given(productService.update(ArgumentMatchers.eq(randomId), ArgumentMatchers.any(Product.class)))
+                    .willReturn(Optional.empty());
 
             String json = mapper.writeValueAsString(p);
 
@@ -203,12 +401,6 @@ class ProductControllerTests {
         @WithMockUser(username = "admin", roles = {"ADMIN"})
         void update_success() throws Exception {
             UUID randomId = UUID.randomUUID();
-            Product existing = new Product();
-            existing.setId(randomId);
-            existing.setName("Agenda");
-            existing.setPrice(20.00);
-            existing.setUnit("un");
-
             Product updatedInput = new Product();
             updatedInput.setName("Agenda Premium");
             updatedInput.setPrice(30.00);
@@ -219,9 +411,10 @@ class ProductControllerTests {
             updatedSaved.setName("Agenda Premium");
             updatedSaved.setPrice(30.00);
             updatedSaved.setUnit("un");
+            updatedSaved.setVersion(4L);
 
-            given(productService.findById(randomId)).willReturn(Optional.of(existing));
-            given(productService.save(ArgumentMatchers.any(Product.class))).willReturn(updatedSaved);
+            given(productService.update(ArgumentMatchers.eq(randomId), ArgumentMatchers.any(Product.class)))
+                    .willReturn(Optional.of(updatedSaved));
 
             String json = mapper.writeValueAsString(updatedInput);
 
@@ -232,7 +425,26 @@ class ProductControllerTests {
                     .andExpect(jsonPath("$.id", is(randomId.toString())))
                     .andExpect(jsonPath("$.name", is("Agenda Premium")))
                     .andExpect(jsonPath("$.price", is(30.00)))
-                    .andExpect(jsonPath("$.unit", is("un")));
+                    .andExpect(jsonPath("$.unit", is("un")))
+                    .andExpect(jsonPath("$.version", is(4)))
+                    .andExpect(header().string("ETag", "\"4\""));
+        }
+
+        @Test
+        @DisplayName("Deve retornar 409 quando a versão informada estiver desatualizada")
+        @WithMockUser(username = "admin", roles = {"ADMIN"})
+        void update_staleVersion() throws Exception {
+            UUID randomId = UUID.randomUUID();
+            Product input = new Product("Agenda", 25.00, "un");
+            input.setVersion(3L);
+
+            given(productService.update(ArgumentMatchers.eq(randomId), ArgumentMatchers.any(Product.class)))
+                    .willThrow(new OptimisticLockingFailureException("versão desatualizada"));
+
+            mockMvc.perform(put("/products/{id}", randomId)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(mapper.writeValueAsString(input)))
+                    .andExpect(status().isConflict());
         }
     }
 
@@ -245,7 +457,7 @@ class ProductControllerTests {
         @WithMockUser(username = "admin", roles = {"ADMIN"})
         void delete_notFound() throws Exception {
             UUID randomId = UUID.randomUUID();
-            given(productService.findById(randomId)).willReturn(Optional.empty());
+            given(productService.deleteById(randomId)).willReturn(false);
 
             mockMvc.perform(delete("/products/{id}", randomId))
                     .andExpect(status().isNotFound());
@@ -256,17 +468,377 @@ class ProductControllerTests {
         @WithMockUser(username = "admin", roles = {"ADMIN"})
         void delete_success() throws Exception {
             UUID randomId = UUID.randomUUID();
-            Product existing = new Product();
-            existing.setId(randomId);
-            existing.setName("Marcador");
-            existing.setPrice(5.00);
-            existing.setUnit("un");
-
-            given(productService.findById(randomId)).willReturn(Optional.of(existing));
-            doNothing().when(productService).deleteById(randomId);
+            given(productService.deleteById(randomId)).willReturn(true);
 
             mockMvc.perform(delete("/products/{id}", randomId))
                     .andExpect(status().isNoContent());
         }
     }
+
+    @Nested
+    @DisplayName("GET /products/page")
+    class PageProducts {
+
+        @Test
+        @DisplayName("Deve retornar a página com o cursor da próxima")
+        void page_withNextCursor() throws Exception {
+            Product p = new Product();
+            p.setId(UUID.randomUUID());
+            p.setName("Caneta");
+            p.setPrice(2.50);
+            p.setUnit("un");
+
+            given(productService.findPage(ProductSort.NAME, null, 1))
+                    .willReturn(new ProductPage(Arrays.asList(p), "abc"));
+
+            mockMvc.perform(get("/products/page").param("size", "1").param("sort", "name"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items", hasSize(1)))
+                    .andExpect(jsonPath("$.items[0].name", is("Caneta")))
+                    .andExpect(jsonPath("$.nextCursor", is("abc")));
+        }
+
+        @Test
+        @DisplayName("Deve retornar 400 para tamanho de página inválido")
+        void page_invalidSize() throws Exception {
+            mockMvc.perform(get("/products/page").param("size", "0"))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("Deve retornar 400 para ordenação desconhecida")
+        void page_invalidSort() throws Exception {
+            mockMvc.perform(get("/products/page").param("sort", "color"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /products/stream")
+    class StreamProducts {
+
+        @Test
+        @DisplayName("Deve escrever o array JSON a partir do cursor do serviço")
+        void stream_writesArray() throws Exception {
+            Product p1 = new Product();
+            p1.setId(UUID.randomUUID());
+            p1.setName("Caneta");
+            p1.setPrice(2.50);
+            p1.setUnit("un");
+
+            Product p2 = new Product();
+            p2.setId(UUID.randomUUID());
+            p2.setName("Caderno");
+            p2.setPrice(15.00);
+            p2.setUnit("un");
+
+            doAnswer(invocation -> {
+                Consumer<Product> consumer = invocation.getArgument(0);
+                consumer.accept(p1);
+                consumer.accept(p2);
+                return null;
+            }).when(productService).streamAll(ArgumentMatchers.any());
+
+            mockMvc.perform(get("/products/stream"))
+                    .andExpect(request().asyncNotStarted())
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(2)))
+                    .andExpect(jsonPath("$[0].name", is("Caneta")))
+                    .andExpect(jsonPath("$[1].name", is("Caderno")));
+        }
+    }
+
+    @Nested
+    @DisplayName("POST /products/batch")
+    class CreateBatch {
+
+        @Test
+        @DisplayName("Deve recusar lote sem autenticação")
+        void createBatch_unauthenticated() throws Exception {
+            mockMvc.perform(post("/products/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("[]"))
+                    .andExpect(status().isForbidden());
+        }
+
+        @Test
+        @DisplayName("Deve retornar o status de cada item quando usuário for ADMIN")
+        @WithMockUser(username = "admin", roles = {"ADMIN"})
+        void createBatch_asAdmin() throws Exception {
+            Product p1 = new Product("Borracha", 0.80, "un");
+            Product p2 = new Product("Régua", 3.00, "un");
+            UUID id = UUID.randomUUID();
+
+            BatchResult result = new BatchResult(Arrays.asList(
+                    BatchItemResult.ok(0, id, BatchItemResult.Status.CREATED),
+                    new BatchItemResult(1, null, BatchItemResult.Status.FAILED, "erro")), 5);
+            given(batchService.createAll(ArgumentMatchers.anyList())).willReturn(result);
+
+            mockMvc.perform(post("/products/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(mapper.writeValueAsString(Arrays.asList(p1, p2))))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.succeeded", is(1)))
+                    .andExpect(jsonPath("$.failed", is(1)))
+                    .andExpect(jsonPath("$.items[0].id", is(id.toString())))
+                    .andExpect(jsonPath("$.items[0].status", is("CREATED")))
+                    .andExpect(jsonPath("$.items[1].status", is("FAILED")));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /products/search")
+    class SearchProducts {
+
+        @Test
+        @DisplayName("Deve repassar os filtros ao serviço e retornar a página")
+        void search_withFilters() throws Exception {
+            ProductSummary caneta = new ProductSummary(UUID.randomUUID(), "Caneta azul", 2.50, "un");
+            given(productService.search(ArgumentMatchers.argThat(q ->
+                    "can".equals(q.getName())
+                            && q.getNameMatch() == ProductSearchQuery.NameMatch.CONTAINS
+                            && q.getMaxPrice() == 10.0
+                            && "un".equals(q.getUnit())
+                            && q.getSort() == ProductSort.PRICE
+                            && q.isDescending())))
+                    .willReturn(new ProductSearchResult(Arrays.asList(caneta), 0, 20, false));
+
+            mockMvc.perform(get("/products/search")
+                            .param("name", "can")
+                            .param("match", "contains")
+                            .param("maxPrice", "10")
+                            .param("unit", "un")
+                            .param("sort", "price")
+                            .param("direction", "desc"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items", hasSize(1)))
+                    .andExpect(jsonPath("$.items[0].name", is("Caneta azul")))
+                    .andExpect(jsonPath("$.hasNext", is(false)));
+        }
+
+        @Test
+        @DisplayName("Deve retornar 400 para página negativa")
+        void search_negativePage() throws Exception {
+            mockMvc.perform(get("/products/search").param("page", "-1"))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("Deve retornar 400 para tipo de busca desconhecido")
+        void search_unknownMatch() throws Exception {
+            mockMvc.perform(get("/products/search").param("name", "can").param("match", "suffix"))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("Deve retornar 400 para página além do deslocamento máximo")
+        void search_offsetTooDeep() throws Exception {
+            mockMvc.perform(get("/products/search").param("page", "501").param("size", "20"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Nested
+    @DisplayName("POST /products/lookup")
+    class LookupProducts {
+
+        @Test
+        @DisplayName("Deve retornar os encontrados e os ids inexistentes")
+        void lookup_foundAndMissing() throws Exception {
+            Product caneta = new Product("Caneta", 2.50, "un");
+            caneta.setId(UUID.randomUUID());
+            UUID missing = UUID.randomUUID();
+            given(productService.lookup(Arrays.asList(caneta.getId(), missing)))
+                    .willReturn(new ProductLookupResult(Arrays.asList(caneta), Arrays.asList(missing)));
+
+            mockMvc.perform(post("/products/lookup")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(mapper.writeValueAsString(Arrays.asList(caneta.getId(), missing))))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.found", hasSize(1)))
+                    .andExpect(jsonPath("$.found[0].name", is("Caneta")))
+                    .andExpect(jsonPath("$.missing[0]", is(missing.toString())));
+        }
+
+        @Test
+        @DisplayName("Deve retornar 413 acima do limite de ids")
+        void lookup_tooManyIds() throws Exception {
+            UUID[] ids = new UUID[1001];
+            Arrays.fill(ids, UUID.randomUUID());
+
+            mockMvc.perform(post("/products/lookup")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(mapper.writeValueAsString(ids)))
+                    .andExpect(status().isPayloadTooLarge());
+        }
+
+        @Test
+        @DisplayName("Deve retornar 400 para id nulo")
+        void lookup_nullId() throws Exception {
+            mockMvc.perform(post("/products/lookup")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("[null]"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /products/suggest")
+    class SuggestProducts {
+
+        @Test
+        @DisplayName("Deve retornar as sugestões do índice de nomes")
+        void suggest_returnsRankedNames() throws Exception {
+            UUID id = UUID.randomUUID();
+            given(nameIndex.suggest("canet", 5))
+                    .willReturn(Arrays.asList(new ProductSuggestion(id, "Caneta azul", 1.0)));
+
+            mockMvc.perform(get("/products/suggest").param("q", "canet").param("limit", "5"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)))
+                    .andExpect(jsonPath("$[0].id", is(id.toString())))
+                    .andExpect(jsonPath("$[0].name", is("Caneta azul")))
+                    .andExpect(jsonPath("$[0].score", is(1.0)));
+        }
+
+        @Test
+        @DisplayName("Deve retornar 400 para busca vazia")
+        void suggest_blankQuery() throws Exception {
+            mockMvc.perform(get("/products/suggest").param("q", " "))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("Deve retornar 503 enquanto o índice é construído")
+        void suggest_indexNotReady() throws Exception {
+            given(nameIndex.suggest("caneta", 10))
+                    .willThrow(new ProductNameIndex.NotReadyException("Índice de nomes em construção"));
+
+            mockMvc.perform(get("/products/suggest").param("q", "caneta"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "1"));
+        }
+    }
+
+    @Nested
+    @DisplayName("POST /products/import e GET /products/export")
+    class ImportExport {
+
+        @Test
+        @DisplayName("Deve recusar importação sem autenticação")
+        void import_unauthenticated() throws Exception {
+            mockMvc.perform(post("/products/import")
+                            .contentType("text/csv")
+                            .content("name\nCaneta\n"))
+                    .andExpect(status().isForbidden());
+        }
+
+        @Test
+        @DisplayName("Deve importar pelo formato do Content-Type e retornar o resumo")
+        @WithMockUser(username = "admin", roles = {"ADMIN"})
+        void import_ndjsonAsAdmin() throws Exception {
+            given(importService.importStream(ArgumentMatchers.any(InputStream.class), ArgumentMatchers.eq(ProductFormat.NDJSON)))
+                    .willReturn(new ImportResult(2, 1, 1, 120, 15, List.of("posição 80: esperadas 3 colunas")));
+
+            mockMvc.perform(post("/products/import")
+                            .contentType("application/x-ndjson")
+                            .content("{\"name\":\"Caneta\"}\n"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.created", is(2)))
+                    .andExpect(jsonPath("$.updated", is(1)))
+                    .andExpect(jsonPath("$.failed", is(1)))
+                    .andExpect(jsonPath("$.errors", hasSize(1)));
+        }
+
+        @Test
+        @DisplayName("Deve retornar 400 para cabeçalho de CSV inválido")
+        @WithMockUser(username = "admin", roles = {"ADMIN"})
+        void import_invalidHeader() throws Exception {
+            given(importService.importStream(ArgumentMatchers.any(InputStream.class), ArgumentMatchers.eq(ProductFormat.CSV)))
+                    .willThrow(new IllegalArgumentException("O cabeçalho do CSV precisa da coluna name"));
+
+            mockMvc.perform(post("/products/import")
+                            .contentType("text/csv")
+                            .content("preco\n1.0\n"))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("Deve exportar em CSV com o nome do arquivo")
+        void export_csv() throws Exception {
+            doAnswer(invocation -> {
+                OutputStream out = invocation.getArgument(1);
+                out.write("id,name,price,unit,version\n".getBytes(StandardCharsets.UTF_8));
+                return 0L;
+            }).when(exportService).export(ArgumentMatchers.eq(ProductFormat.CSV), ArgumentMatchers.any(OutputStream.class));
+
+            mockMvc.perform(get("/products/export").param("format", "csv"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                    .andExpect(header().string("Content-Disposition", containsString("products.csv")))
+                    .andExpect(content().string(startsWith("id,name,price,unit,version")));
+        }
+
+        @Test
+        @DisplayName("Deve retornar 400 para formato desconhecido")
+        void export_unknownFormat() throws Exception {
+            mockMvc.perform(get("/products/export").param("format", "xml"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Nested
+    @DisplayName("POST /products/prices")
+    class UpdatePrices {
+
+        @Test
+        @DisplayName("Deve recusar atualização de preços sem autenticação")
+        void updatePrices_unauthenticated() throws Exception {
+            mockMvc.perform(post("/products/prices")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("[]"))
+                    .andExpect(status().isForbidden());
+        }
+
+        @Test
+        @DisplayName("Deve retornar 202 quando as atualizações entrarem na fila")
+        @WithMockUser(username = "admin", roles = {"ADMIN"})
+        void updatePrices_accepted() throws Exception {
+            List<PriceUpdate> updates = List.of(new PriceUpdate(UUID.randomUUID(), 9.9));
+
+            mockMvc.perform(post("/products/prices")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(mapper.writeValueAsString(updates)))
+                    .andExpect(status().isAccepted());
+        }
+
+        @Test
+        @DisplayName("Deve retornar 503 com Retry-After quando a fila estiver cheia")
+        @WithMockUser(username = "admin", roles = {"ADMIN"})
+        void updatePrices_queueFull() throws Exception {
+            doAnswer(invocation -> {
+                throw new PriceUpdateQueue.QueueFullException("Fila de preços cheia");
+            }).when(priceQueue).submit(ArgumentMatchers.anyList());
+
+            mockMvc.perform(post("/products/prices")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(mapper.writeValueAsString(List.of(new PriceUpdate(UUID.randomUUID(), 1.0)))))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "1"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Actuator na porta da API")
+    class ActuatorOnApiPort {
+
+        @Test
+        @DisplayName("Deve retornar 403 para métricas fora da porta de gerenciamento")
+        void metrics_forbidden() throws Exception {
+            mockMvc.perform(get("/actuator/prometheus"))
+                    .andExpect(status().isForbidden());
+            mockMvc.perform(get("/actuator/metrics/http.server.requests"))
+                    .andExpect(status().isForbidden());
+        }
+    }
 }
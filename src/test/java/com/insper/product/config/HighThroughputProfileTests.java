@@ -0,0 +1,84 @@
+package com.insper.product.config;
+
+import com.insper.product.datasource.PoolTuning;
+import com.insper.product.model.Product;
+import com.insper.product.model.ProductSort;
+import com.insper.product.repository.ProductRepository;
+import com.insper.product.service.ProductService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.env.Environment;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Poller do change feed parado: ele também esvazia o cache de consultas (escritas de outras instâncias)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:high-throughput;DB_CLOSE_DELAY=-1",
+        "product.changes.poll-interval-ms=3600000"
+})
+@ActiveProfiles("high-throughput")
+class HighThroughputProfileTests {
+
+    @Autowired
+    private ProductService service;
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private Environment environment;
+
+    @Test
+    @DisplayName("Deve ler o produto do cache de segundo nível a partir da segunda busca")
+    void findById_hitsSecondLevelCache() {
+        Product saved = service.save(new Product("Prancheta", 12.0, "un"));
+        Statistics statistics = statistics();
+        repository.findById(saved.getId());
+        long hits = statistics.getSecondLevelCacheHitCount();
+
+        assertEquals("Prancheta", repository.findById(saved.getId()).orElseThrow().getName());
+        assertTrue(statistics.getSecondLevelCacheHitCount() > hits);
+    }
+
+    @Test
+    @DisplayName("Deve responder a mesma página pelo cache de consultas até a próxima escrita")
+    void findPage_usesQueryCacheUntilWrite() {
+        service.save(new Product("Agenda", 30.0, "un"));
+        Statistics statistics = statistics();
+        service.findPage(ProductSort.NAME, null, 10);
+        long hits = statistics.getQueryCacheHitCount();
+
+        service.findPage(ProductSort.NAME, null, 10);
+        assertEquals(hits + 1, statistics.getQueryCacheHitCount());
+
+        service.save(new Product("Arquivo morto", 18.0, "un"));
+        assertTrue(service.findPage(ProductSort.NAME, null, 10).getItems().stream()
+                          .anyMatch(p -> p.getName().equals("Arquivo morto")));
+    }
+
+    @Test
+    @DisplayName("Deve dimensionar o pool pelos núcleos e pela latência do banco")
+    void poolSize_followsCoresAndLatency() {
+        PoolTuning tuning = PoolTuning.from(environment);
+
+        // 2ms de espera por 0,5ms de CPU: 5 conexões por núcleo, entre 4 e 64
+        assertEquals(20, tuning.poolSize(4));
+        assertEquals(5, tuning.poolSize(1));
+        assertEquals(64, tuning.poolSize(32));
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,78 @@
+package com.insper.product.config;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class JwtAuthenticationFilterTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final JwtAuthenticationFilter filter = new JwtAuthenticationFilter(registry);
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Deve autenticar e reutilizar o token já verificado")
+    void validToken_isCached() throws Exception {
+        String token = token("MINHA_CHAVE_SECRETA", new Date(System.currentTimeMillis() + 60_000));
+
+        Authentication first = authenticate(token);
+        Authentication second = authenticate(token);
+
+        assertEquals("maria", first.getName());
+        assertEquals("maria", second.getName());
+        assertEquals(1, registry.get("jwt.validation").tag("result", "verified").timer().count());
+        assertEquals(1, registry.get("jwt.validation").tag("result", "cached").timer().count());
+    }
+
+    @Test
+    @DisplayName("Não deve autenticar token com assinatura inválida")
+    void invalidSignature_isRejected() throws Exception {
+        String token = token("OUTRA_CHAVE", new Date(System.currentTimeMillis() + 60_000));
+
+        assertNull(authenticate(token));
+        assertNull(authenticate(token));
+        assertEquals(2, registry.get("jwt.validation").tag("result", "invalid").timer().count());
+    }
+
+    @Test
+    @DisplayName("Não deve autenticar token expirado")
+    void expiredToken_isRejected() throws Exception {
+        String token = token("MINHA_CHAVE_SECRETA", new Date(System.currentTimeMillis() - 60_000));
+
+        assertNull(authenticate(token));
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private static String token(String secret, Date expiration) {
+        return Jwts.builder()
+                   .setSubject("maria")
+                   .setExpiration(expiration)
+                   .signWith(SignatureAlgorithm.HS256, secret.getBytes())
+                   .compact();
+    }
+}
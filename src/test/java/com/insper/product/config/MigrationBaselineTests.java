@@ -0,0 +1,41 @@
+package com.insper.product.config;
+
+import com.insper.product.model.Product;
+import com.insper.product.service.ProductService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// O INIT do H2 cria a tabela como o antigo ddl-auto=update criava (sem version), antes
+// do Flyway: é o banco que o perfil prod recebe num upgrade e marca com o baseline
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:baseline;DB_CLOSE_DELAY=-1;INIT=CREATE TABLE IF NOT EXISTS product"
+                + " (id BINARY(16) PRIMARY KEY, name VARCHAR(255), price DOUBLE PRECISION, unit VARCHAR(255))",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="
+})
+@ActiveProfiles("prod")
+class MigrationBaselineTests {
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private ProductService service;
+
+    @Test
+    @DisplayName("Deve migrar um banco criado pelo ddl-auto antigo e subir com o validate")
+    void migrate_addsVersionToBaselineSchema() {
+        assertEquals(1, jdbc.queryForObject("select count(*) from information_schema.columns"
+                + " where lower(table_name) = 'product' and lower(column_name) = 'version'", Integer.class));
+
+        Product saved = service.save(new Product("Borracha", 1.5, "un"));
+
+        assertEquals(0L, service.findById(saved.getId()).orElseThrow().getVersion());
+    }
+}
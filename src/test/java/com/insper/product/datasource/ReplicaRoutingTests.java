@@ -0,0 +1,122 @@
+package com.insper.product.datasource;
+
+import com.insper.product.model.Product;
+import com.insper.product.model.ProductSort;
+import com.insper.product.service.ProductService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Duas bases H2 em memória, sem replicação entre elas: o que cada leitura enxerga
+ * mostra para qual das duas ela foi roteada.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReplicaRoutingTests.PRIMARY_URL,
+        "product.datasource.replicas[0].url=" + ReplicaRoutingTests.REPLICA_URL,
+        "product.datasource.read-your-writes=1m"
+})
+class ReplicaRoutingTests {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    private static JdbcTemplate primary;
+    private static JdbcTemplate replica;
+
+    @Autowired
+    private ProductService service;
+
+    @Autowired
+    private ReadYourWrites readYourWrites;
+
+    // Antes do contexto: a réplica recebe o mesmo esquema pelas migrações
+    @BeforeAll
+    static void createReplicaSchema() {
+        DriverManagerDataSource replicaDataSource = new DriverManagerDataSource(REPLICA_URL, "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/h2/V1__product.sql"),
+                                      new ClassPathResource("db/migration/h2/V2__product_change_feed.sql"))
+                .execute(replicaDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        primary = new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "sa", ""));
+    }
+
+    @Test
+    @DisplayName("Deve ler da réplica em transações read-only")
+    void reads_goToReplica() {
+        UUID id = UUID.randomUUID();
+        replica.update("insert into product (id, name, price, unit, version) values (?, ?, ?, ?, ?)",
+                       bytes(id), "Só na réplica", 3.0, "un", 0L);
+
+        assertTrue(pageIds().contains(id));
+        assertTrue(service.findById(id).isPresent());
+    }
+
+    @Test
+    @DisplayName("Deve gravar na primária")
+    void writes_goToPrimary() {
+        Product saved = service.save(new Product("Grampeador", 25.0, "un"));
+
+        assertEquals(1, primary.queryForObject("select count(*) from product where name = ?", Integer.class, "Grampeador"));
+        assertEquals(0, replica.queryForObject("select count(*) from product where name = ?", Integer.class, "Grampeador"));
+        assertFalse(pageIds().contains(saved.getId()));
+    }
+
+    @Test
+    @DisplayName("Deve ler da primária por uma janela depois de o cliente escrever")
+    void readYourWrites_sticksWriterToPrimary() throws Exception {
+        Product saved = inRequest("10.0.0.1", () -> {
+            Product product = service.save(new Product("Clipe", 0.1, "cx"));
+            // Na mesma requisição, depois da escrita
+            assertTrue(pageIds().contains(product.getId()));
+            return product;
+        });
+
+        assertTrue(inRequest("10.0.0.1", () -> pageIds().contains(saved.getId())));
+        assertFalse(inRequest("10.0.0.2", () -> pageIds().contains(saved.getId())));
+    }
+
+    private List<UUID> pageIds() {
+        return service.findPage(ProductSort.ID, null, 1000).getItems().stream()
+                      .map(Product::getId)
+                      .collect(Collectors.toList());
+    }
+
+    private <T> T inRequest(String remoteAddr, Callable<T> body) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddr);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        readYourWrites.preHandle(request, response, new Object());
+        try {
+            return body.call();
+        } finally {
+            readYourWrites.afterCompletion(request, response, new Object(), null);
+        }
+    }
+
+    // O Hibernate grava UUID como binary(16) no H2
+    private static byte[] bytes(UUID id) {
+        return ByteBuffer.allocate(16)
+                         .putLong(id.getMostSignificantBits())
+                         .putLong(id.getLeastSignificantBits())
+                         .array();
+    }
+}
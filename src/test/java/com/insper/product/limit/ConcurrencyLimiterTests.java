@@ -0,0 +1,56 @@
+package com.insper.product.limit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimiterTests {
+
+    private static final long MS = 1_000_000L;
+
+    private final ConcurrencyLimiter limiter =
+            new ConcurrencyLimiter(20, 2, 40, Duration.ofMillis(50), Duration.ofMillis(100));
+
+    @Test
+    @DisplayName("Deve recusar acima do limite e liberar vaga no release")
+    void acquireUpToLimit() {
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+
+        limiter.release();
+
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("Deve reduzir o limite quando a latência do banco passa do alvo")
+    void decreasesOnSlowDatabase() {
+        long now = System.nanoTime() + 1000 * MS;
+        for (int window = 0; window < 5; window++) {
+            limiter.onLatency(500 * MS, now + window * 100 * MS);
+        }
+
+        assertTrue(limiter.getLimit() < 20, "limite: " + limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("Deve aumentar o limite aos poucos quando o banco está rápido e o limite em uso")
+    void increasesWhenHealthy() {
+        for (int i = 0; i < 15; i++) {
+            limiter.tryAcquire();
+        }
+        long now = System.nanoTime() + 1000 * MS;
+        for (int window = 0; window < 3; window++) {
+            limiter.onLatency(MS, now + window * 100 * MS);
+        }
+
+        assertEquals(23, limiter.getLimit());
+    }
+}
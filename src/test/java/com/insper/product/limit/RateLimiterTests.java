@@ -0,0 +1,46 @@
+package com.insper.product.limit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTests {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    @DisplayName("Deve liberar a rajada e recusar o excedente com o tempo de espera")
+    void burstThenReject() {
+        RateLimiter limiter = new RateLimiter(10, 5, 1000);
+        long now = 0;
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("cliente", now));
+        }
+        long wait = limiter.tryAcquire("cliente", now);
+
+        assertTrue(wait > 0 && wait <= SECOND / 10, "espera de até um intervalo: " + wait);
+    }
+
+    @Test
+    @DisplayName("Deve repor permissões na taxa configurada")
+    void refillsAtRate() {
+        RateLimiter limiter = new RateLimiter(10, 1, 1000);
+
+        assertEquals(0, limiter.tryAcquire("cliente", 0));
+        assertTrue(limiter.tryAcquire("cliente", SECOND / 20) > 0);
+        assertEquals(0, limiter.tryAcquire("cliente", SECOND / 10));
+    }
+
+    @Test
+    @DisplayName("Deve manter um bucket independente por cliente")
+    void bucketsPerKey() {
+        RateLimiter limiter = new RateLimiter(1, 1, 1000);
+
+        assertEquals(0, limiter.tryAcquire("sub:maria", 0));
+        assertTrue(limiter.tryAcquire("sub:maria", 0) > 0);
+        assertEquals(0, limiter.tryAcquire("ip:10.0.0.1", 0));
+    }
+}
@@ -0,0 +1,118 @@
+package com.insper.product.search;
+
+import com.insper.product.model.ProductSuggestion;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrigramIndexTests {
+
+    private final TrigramIndex.Scratch scratch = new TrigramIndex.Scratch();
+
+    @Test
+    @DisplayName("Deve normalizar maiúsculas, acentos e pontuação")
+    void normalize_foldsCaseAccentsAndPunctuation() {
+        assertEquals("pao de acucar 1kg", TrigramIndex.normalize("  Pão-de-Açúcar (1kg) "));
+        assertEquals("", TrigramIndex.normalize(null));
+    }
+
+    @Test
+    @DisplayName("Deve sugerir primeiro os nomes que começam pelo texto")
+    void suggest_prefixFirst() {
+        TrigramIndex index = index("Caneta azul", "Caneta preta", "Lapiseira", "Apontador de caneta");
+
+        List<String> names = names(index.suggest("cane", 10, 0.5, scratch));
+
+        assertEquals(List.of("Caneta azul", "Caneta preta", "Apontador de caneta"), names);
+    }
+
+    @Test
+    @DisplayName("Deve tolerar erros de digitação")
+    void suggest_toleratesTypos() {
+        TrigramIndex index = index("Caderno universitário", "Borracha branca", "Cola bastão");
+
+        List<ProductSuggestion> found = index.suggest("cadrno univercitario", 10, 0.5, scratch);
+
+        assertEquals("Caderno universitário", found.get(0).getName());
+        assertTrue(found.get(0).getScore() < 1.0);
+        assertTrue(index.suggest("xyzw", 10, 0.5, scratch).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Deve refletir renomeações e remoções, ignorando eventos antigos")
+    void upsertAndDelete_applyBySeq() {
+        UUID id = UUID.randomUUID();
+        TrigramIndex index = TrigramIndex.empty();
+        index.upsert(id, "Grampeador", 1);
+        index.upsert(id, "Perfurador", 3);
+        index.upsert(id, "Grampeador", 2);
+
+        assertTrue(index.suggest("grampeador", 10, 0.5, scratch).isEmpty());
+        assertEquals("Perfurador", index.suggest("perfurador", 10, 0.5, scratch).get(0).getName());
+
+        index.delete(id, 4);
+        index.upsert(id, "Perfurador", 3);
+
+        assertTrue(index.suggest("perfurador", 10, 0.5, scratch).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    @DisplayName("Deve montar em paralelo o mesmo índice que em uma thread")
+    void build_parallelMatchesSequential() {
+        int count = 50_000;
+        long[] high = new long[count];
+        long[] low = new long[count];
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            UUID id = UUID.randomUUID();
+            high[i] = id.getMostSignificantBits();
+            low[i] = id.getLeastSignificantBits();
+            names[i] = "Produto " + i + (i % 3 == 0 ? " azul" : " verde");
+        }
+
+        TrigramIndex sequential = TrigramIndex.build(high, low, names, null, count, 1);
+        TrigramIndex parallel = TrigramIndex.build(high, low, names, null, count, 4);
+
+        for (String query : List.of("produto 4242", "prodto 17 azu", "verde")) {
+            assertEquals(names(sequential.suggest(query, 20, 0.5, scratch)),
+                         names(parallel.suggest(query, 20, 0.5, scratch)));
+        }
+    }
+
+    @Test
+    @DisplayName("Deve compactar mantendo só os produtos vivos")
+    void compact_dropsRemovedDocuments() {
+        TrigramIndex index = index("Tesoura", "Estojo", "Mochila");
+        List<ProductSuggestion> all = index.suggest("estojo", 10, 0.5, scratch);
+        index.delete(all.get(0).getId(), 1);
+
+        TrigramIndex compacted = index.compact(1);
+
+        assertEquals(2, compacted.size());
+        assertEquals(0, compacted.removedCount());
+        assertTrue(compacted.suggest("estojo", 10, 0.5, scratch).isEmpty());
+        assertEquals("Mochila", compacted.suggest("mochila", 10, 0.5, scratch).get(0).getName());
+    }
+
+    private static TrigramIndex index(String... names) {
+        long[] high = new long[names.length];
+        long[] low = new long[names.length];
+        for (int i = 0; i < names.length; i++) {
+            UUID id = UUID.randomUUID();
+            high[i] = id.getMostSignificantBits();
+            low[i] = id.getLeastSignificantBits();
+        }
+        return TrigramIndex.build(high, low, names, null, names.length, 1);
+    }
+
+    private static List<String> names(List<ProductSuggestion> suggestions) {
+        return suggestions.stream().map(ProductSuggestion::getName).collect(Collectors.toList());
+    }
+}
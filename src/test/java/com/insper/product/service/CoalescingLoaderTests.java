@@ -0,0 +1,93 @@
+package com.insper.product.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoalescingLoaderTests {
+
+    private final CoalescingLoader<String, String> loader = new CoalescingLoader<>();
+
+    @Test
+    @DisplayName("Deve compartilhar a busca de uma chave entre chamadas concorrentes")
+    void loadAll_sharesInFlightKeys() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        CompletableFuture<Map<String, String>> first = CompletableFuture.supplyAsync(() ->
+                loader.loadAll(List.of("a", "b"), keys -> {
+                    loads.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return values(keys);
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // A busca da segunda chamada só começa depois de ela registrar as suas chaves: a
+        // primeira só termina (e libera "b") quando a segunda já está esperando por "b"
+        CountDownLatch secondLoading = new CountDownLatch(1);
+        AtomicReference<Set<String>> secondKeys = new AtomicReference<>();
+        CompletableFuture<Map<String, String>> second = CompletableFuture.supplyAsync(() ->
+                loader.loadAll(List.of("b", "c"), keys -> {
+                    loads.incrementAndGet();
+                    secondKeys.set(Set.copyOf(keys));
+                    secondLoading.countDown();
+                    return values(keys);
+                }));
+        assertTrue(secondLoading.await(5, TimeUnit.SECONDS));
+        release.countDown();
+
+        assertEquals(Map.of("a", "A", "b", "B"), first.get(5, TimeUnit.SECONDS));
+        assertEquals(Map.of("b", "B", "c", "C"), second.get(5, TimeUnit.SECONDS));
+        assertEquals(Set.of("c"), secondKeys.get());
+        assertEquals(2, loads.get());
+        assertEquals(0, loader.inFlight());
+    }
+
+    @Test
+    @DisplayName("Deve deixar de fora as chaves sem valor")
+    void loadAll_omitsMissingKeys() {
+        Map<String, String> result = loader.loadAll(List.of("a", "x", "a"), keys -> Map.of("a", "A"));
+
+        assertEquals(Map.of("a", "A"), result);
+    }
+
+    @Test
+    @DisplayName("Deve repassar a falha da busca e liberar as chaves")
+    void loadAll_propagatesFailure() {
+        assertThrows(IllegalStateException.class, () -> loader.loadAll(List.of("a"), keys -> {
+            throw new IllegalStateException("banco fora do ar");
+        }));
+
+        assertEquals(0, loader.inFlight());
+        assertEquals(Map.of("a", "A"), loader.loadAll(List.of("a"), CoalescingLoaderTests::values));
+    }
+
+    private static Map<String, String> values(Set<String> keys) {
+        Map<String, String> values = new HashMap<>();
+        keys.forEach(key -> values.put(key, key.toUpperCase()));
+        return values;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
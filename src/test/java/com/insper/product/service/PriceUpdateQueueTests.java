@@ -0,0 +1,93 @@
+package com.insper.product.service;
+
+import com.insper.product.model.PriceUpdate;
+import com.insper.product.model.Product;
+import com.insper.product.repository.ProductChangeRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Gravação agendada parada: os testes chamam flush() quando querem gravar
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:price-queue;DB_CLOSE_DELAY=-1",
+        "product.prices.flush-interval-ms=3600000",
+        "product.prices.capacity=5",
+        "product.prices.batch-size=2"
+})
+class PriceUpdateQueueTests {
+
+    @Autowired
+    private PriceUpdateQueue queue;
+
+    @Autowired
+    private ProductService service;
+
+    @Autowired
+    private ProductChangeRepository changes;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    @DisplayName("Deve gravar só o último preço de cada produto, com um evento por gravação")
+    void flush_coalescesByProduct() {
+        Product caneta = service.save(new Product("Caneta", 2.0, "un"));
+        service.findById(caneta.getId());
+        long changesBefore = changes.count();
+
+        queue.submit(List.of(new PriceUpdate(caneta.getId(), 2.1), new PriceUpdate(caneta.getId(), 2.2)));
+        queue.submit(List.of(new PriceUpdate(caneta.getId(), 2.3)));
+        assertEquals(1, queue.depth());
+        queue.flush();
+
+        Product updated = service.findById(caneta.getId()).orElseThrow();
+        assertEquals(2.3, updated.getPrice());
+        assertEquals(1L, updated.getVersion());
+        assertEquals(0, queue.depth());
+        assertEquals(changesBefore + 1, changes.count());
+        assertEquals(2.0, meterRegistry.get("products.prices.updates").tag("outcome", "coalesced").counter().count());
+    }
+
+    @Test
+    @DisplayName("Deve gravar em vários lotes e descartar ids inexistentes")
+    void flush_batchesAndSkipsUnknownIds() {
+        List<Product> products = IntStream.range(0, 3)
+                                          .mapToObj(i -> service.save(new Product("Pasta " + i, 5.0, "un")))
+                                          .collect(Collectors.toList());
+        List<PriceUpdate> updates = products.stream()
+                                            .map(product -> new PriceUpdate(product.getId(), 6.0))
+                                            .collect(Collectors.toList());
+        long changesBefore = changes.count();
+
+        queue.submit(updates);
+        queue.submit(List.of(new PriceUpdate(UUID.randomUUID(), 1.0)));
+        queue.flush();
+
+        for (Product product : products) {
+            assertEquals(6.0, service.findById(product.getId()).orElseThrow().getPrice());
+        }
+        assertEquals(changesBefore + 3, changes.count());
+    }
+
+    @Test
+    @DisplayName("Deve recusar a requisição inteira acima da capacidade da fila")
+    void submit_rejectsWhenFull() {
+        List<PriceUpdate> updates = IntStream.range(0, 6)
+                                             .mapToObj(i -> new PriceUpdate(UUID.randomUUID(), 1.0))
+                                             .collect(Collectors.toList());
+
+        assertThrows(PriceUpdateQueue.QueueFullException.class, () -> queue.submit(updates));
+        assertEquals(0, queue.depth());
+        assertThrows(IllegalArgumentException.class, () -> queue.submit(List.of(new PriceUpdate(UUID.randomUUID(), null))));
+    }
+}
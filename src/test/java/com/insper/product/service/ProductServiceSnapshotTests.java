@@ -0,0 +1,81 @@
+package com.insper.product.service;
+
+import com.insper.product.model.Product;
+import com.insper.product.model.ProductChange;
+import com.insper.product.repository.ProductChangeRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Pool de uma conexão: uma escrita que precisasse de outra conexão no afterCommit (para
+// atualizar o snapshot) esperaria pela sua própria e falharia no connection-timeout.
+// Poller e fila de preços parados: os testes chamam applyFeedChanges quando querem
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:snapshot-service;DB_CLOSE_DELAY=-1",
+        "spring.datasource.hikari.maximum-pool-size=1",
+        "spring.datasource.hikari.connection-timeout=5000",
+        "product.catalog.mode=snapshot",
+        "product.search.enabled=false",
+        "product.changes.poll-interval-ms=3600000",
+        "product.prices.flush-interval-ms=3600000"
+})
+class ProductServiceSnapshotTests {
+
+    @Autowired
+    private ProductService service;
+
+    @Autowired
+    private ProductChangeRepository changes;
+
+    @Test
+    @DisplayName("Deve atualizar o snapshot no commit com escritas concorrentes e uma só conexão")
+    void writes_updateSnapshotWithoutSecondConnection() {
+        List<CompletableFuture<Product>> writes = IntStream.range(0, 8)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> service.save(new Product("Régua " + i, 3.0, "un"))))
+                .collect(Collectors.toList());
+        List<Product> saved = writes.stream().map(CompletableFuture::join).collect(Collectors.toList());
+
+        for (Product product : saved) {
+            assertEquals(product.getName(), service.findById(product.getId()).orElseThrow().getName());
+        }
+
+        Product first = saved.get(0);
+        service.update(first.getId(), new Product("Régua nova", 4.0, "un"));
+        assertEquals("Régua nova", service.findById(first.getId()).orElseThrow().getName());
+        assertEquals(1L, service.findById(first.getId()).orElseThrow().getVersion());
+
+        service.deleteById(saved.get(1).getId());
+        assertTrue(service.findById(saved.get(1).getId()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Não deve voltar o snapshot para um evento mais antigo que chega depois")
+    void applyFeedChanges_skipsOlderEvents() {
+        Product caneta = service.save(new Product("Caneta", 2.0, "un"));
+        service.update(caneta.getId(), new Product("Caneta azul", 2.5, "un"));
+
+        // O poller entrega os dois eventos (já aplicados no commit), em ordem
+        List<ProductChange> feed = changes.findBySeqGreaterThanOrderBySeqAsc(0, PageRequest.of(0, 10_000));
+        service.applyFeedChanges(feed);
+        // e o evento da criação, repetido, não desfaz a atualização
+        ProductChange created = feed.stream()
+                                    .filter(change -> change.getProductId().equals(caneta.getId()))
+                                    .findFirst()
+                                    .orElseThrow();
+        service.applyFeedChanges(List.of(created));
+
+        Product current = service.findById(caneta.getId()).orElseThrow();
+        assertEquals("Caneta azul", current.getName());
+        assertEquals(1L, current.getVersion());
+    }
+}
@@ -0,0 +1,81 @@
+package com.insper.product.service;
+
+import com.insper.product.model.Product;
+import com.insper.product.model.ProductCatalog;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ProductSnapshotTests {
+
+    @Test
+    @DisplayName("Deve encontrar por id produtos de faixas de id diferentes")
+    void find_acrossShards() {
+        UUID low = new UUID(0x0100000000000000L, 1);
+        UUID high = new UUID(0xf100000000000000L, 2);
+        ProductSnapshot.Loader loader = new ProductSnapshot.Loader();
+        loader.add(high, "Caderno", 15.0, "un", 3L);
+        loader.add(low, "Caneta", 2.5, "un", 0L);
+
+        ProductSnapshot snapshot = loader.build(0);
+
+        assertEquals(2, snapshot.size());
+        assertEquals("Caneta", snapshot.find(low).getName());
+        assertEquals(15.0, snapshot.find(high).getPrice());
+        assertEquals(3L, snapshot.find(high).getVersion());
+        assertNull(snapshot.find(UUID.randomUUID()));
+    }
+
+    @Test
+    @DisplayName("Deve devolver o preço armazenado, sem arredondar, no produto e no catálogo")
+    void find_keepsExactPrice() {
+        UUID id = new UUID(0x3000000000000000L, 1);
+        UUID semPreco = new UUID(0x3000000000000000L, 2);
+        ProductSnapshot.Loader loader = new ProductSnapshot.Loader();
+        loader.add(id, "Clipe", 1.005, "un", 0L);
+        loader.add(semPreco, "Fita", null, "un", 0L);
+
+        ProductSnapshot snapshot = loader.build(0);
+
+        assertEquals(1.005, snapshot.find(id).getPrice());
+        assertNull(snapshot.find(semPreco).getPrice());
+        assertEquals(1.005, snapshot.catalog().getProducts().get(0).getPrice());
+    }
+
+    @Test
+    @DisplayName("Deve publicar um novo snapshot sem alterar o anterior")
+    void apply_copyOnWrite() {
+        UUID kept = new UUID(0x2000000000000000L, 1);
+        UUID updated = new UUID(0x7000000000000000L, 1);
+        UUID deleted = new UUID(0x7000000000000000L, 2);
+        ProductSnapshot.Loader loader = new ProductSnapshot.Loader();
+        loader.add(kept, "Régua", 4.0, "un", 0L);
+        loader.add(updated, "Lápis", 1.2, "un", 0L);
+        loader.add(deleted, "Borracha", 0.8, "un", 0L);
+        ProductSnapshot before = loader.build(0);
+        ProductCatalog catalogBefore = before.catalog();
+
+        Product newVersion = new Product("Lápis HB", 1.5, "un");
+        newVersion.setId(updated);
+        newVersion.setVersion(1L);
+        ProductSnapshot after = before.apply(List.of(updated, deleted), Map.of(updated, newVersion), 0);
+
+        assertEquals(3, before.size());
+        assertEquals("Lápis", before.find(updated).getName());
+        assertSame(catalogBefore, before.catalog());
+
+        assertEquals(2, after.size());
+        assertEquals("Lápis HB", after.find(updated).getName());
+        assertNull(after.find(deleted));
+        assertEquals("Régua", after.find(kept).getName());
+        assertNotEquals(catalogBefore.getEtag(), after.catalog().getEtag());
+    }
+}
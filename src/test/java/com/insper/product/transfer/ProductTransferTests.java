@@ -0,0 +1,139 @@
+package com.insper.product.transfer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insper.product.model.Product;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProductTransferTests {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Deve ler o CSV exportado de volta, com aspas e campos nulos")
+    void csv_roundTrip() throws IOException {
+        Product product = new Product("Caneta \"gel\", azul", 2.5, null);
+        product.setId(UUID.randomUUID());
+        product.setVersion(3L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ProductFormat.RecordWriter writer = ProductFormat.CSV.writer(out, mapper)) {
+            writer.write(product);
+        }
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+
+        byte[] line = lines[1].getBytes(StandardCharsets.UTF_8);
+        Product parsed = ProductFormat.CSV.parser(lines[0], mapper).parse(line, line.length);
+
+        assertEquals(product.getId(), parsed.getId());
+        assertEquals("Caneta \"gel\", azul", parsed.getName());
+        assertEquals(2.5, parsed.getPrice());
+        assertNull(parsed.getUnit());
+    }
+
+    @Test
+    @DisplayName("Deve aceitar as colunas do CSV em qualquer ordem e recusar colunas desconhecidas")
+    void csv_headerColumns() throws IOException {
+        byte[] line = "un,Borracha".getBytes(StandardCharsets.UTF_8);
+        Product parsed = ProductFormat.CSV.parser("unit,name", mapper).parse(line, line.length);
+
+        assertEquals("Borracha", parsed.getName());
+        assertEquals("un", parsed.getUnit());
+        assertNull(parsed.getId());
+        assertThrows(IllegalArgumentException.class, () -> ProductFormat.CSV.parser("name,preco", mapper));
+        assertThrows(IllegalArgumentException.class, () -> ProductFormat.CSV.parser("id,price", mapper));
+    }
+
+    @Test
+    @DisplayName("Deve escrever um objeto JSON por linha no NDJSON")
+    void ndjson_oneObjectPerLine() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ProductFormat.RecordWriter writer = ProductFormat.NDJSON.writer(out, mapper)) {
+            writer.write(new Product("Caneta", 2.5, "un"));
+            writer.write(new Product("Lápis", 1.0, "un"));
+        }
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+
+        assertEquals(2, lines.length);
+        byte[] line = lines[1].getBytes(StandardCharsets.UTF_8);
+        assertEquals("Lápis", ProductFormat.NDJSON.parser(null, mapper).parse(line, line.length).getName());
+    }
+
+    @Test
+    @DisplayName("Deve dividir arquivo e corpo de requisição nos mesmos blocos de linhas inteiras")
+    void chunkedInput_splitsOnLineBoundaries() throws IOException {
+        StringBuilder csv = new StringBuilder("name,price\r\n");
+        for (int i = 0; i < 200; i++) {
+            csv.append("Produto ").append(i).append(',').append(i).append('\n');
+        }
+        byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+        Path file = Files.write(dir.resolve("products.csv"), bytes);
+
+        List<String> fromFile;
+        try (ChunkedInput input = ChunkedInput.of(file, 256)) {
+            assertEquals("name,price", input.readHeader());
+            fromFile = chunks(input);
+            assertEquals(bytes.length, input.position());
+        }
+        List<String> fromStream;
+        try (ChunkedInput input = ChunkedInput.of(new ByteArrayInputStream(bytes), 256)) {
+            assertEquals("name,price", input.readHeader());
+            fromStream = chunks(input);
+        }
+
+        assertEquals(fromFile, fromStream);
+        assertEquals(csv.substring("name,price\r\n".length()), String.join("", fromFile));
+        for (String chunk : fromFile) {
+            assertEquals('\n', chunk.charAt(chunk.length() - 1));
+        }
+    }
+
+    @Test
+    @DisplayName("Deve recusar linha maior que o bloco")
+    void chunkedInput_lineTooLong() throws IOException {
+        byte[] bytes = ("x".repeat(100) + "\n").getBytes(StandardCharsets.UTF_8);
+
+        try (ChunkedInput input = ChunkedInput.of(new ByteArrayInputStream(bytes), 64)) {
+            assertThrows(IllegalArgumentException.class, input::next);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve reconhecer o formato pela extensão ou pelo media type")
+    void format_fromNameOrMediaType() {
+        assertEquals(ProductFormat.CSV, ProductFormat.fromFileName("catalogo.CSV"));
+        assertEquals(ProductFormat.NDJSON, ProductFormat.fromFileName("catalogo.jsonl"));
+        assertEquals(ProductFormat.NDJSON, ProductFormat.from("application/x-ndjson"));
+        assertThrows(IllegalArgumentException.class, () -> ProductFormat.from("xml"));
+    }
+
+    private static List<String> chunks(ChunkedInput input) throws IOException {
+        List<String> chunks = new ArrayList<>();
+        ChunkedInput.Chunk chunk;
+        while ((chunk = input.next()) != null) {
+            ByteBuffer data = chunk.getData();
+            byte[] bytes = new byte[data.remaining()];
+            data.get(bytes);
+            chunks.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return chunks;
+    }
+}